@@ -0,0 +1,42 @@
+package com.teamlogger.benchmarks;
+
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.security.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// Backend beans use field injection, so benchmarks wire them by hand
+final class BenchmarkFixtures {
+    
+    static final String JWT_SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+    
+    private BenchmarkFixtures() {
+    }
+    
+    static JwtTokenProvider tokenProvider(int claimsCacheSize) {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 86400000L);
+        ReflectionTestUtils.setField(tokenProvider, "claimsCacheSize", claimsCacheSize);
+        ReflectionTestUtils.setField(tokenProvider, "meterRegistry", new SimpleMeterRegistry());
+        tokenProvider.init();
+        return tokenProvider;
+    }
+    
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setFirstName("Bench");
+        user.setLastName("User " + id);
+        user.setRole(User.UserRole.USER);
+        user.setTokenVersion(0);
+        return user;
+    }
+    
+    static String token(JwtTokenProvider tokenProvider, User user) {
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.teamlogger.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Same command line as org.openjdk.jmh.Main, but results always end up as JSON under results/
+// so runs from different releases can be compared, e.g. java -jar target/benchmarks.jar Jwt
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        
+        if (commandLine.getResult().hasValue()) {
+            options.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON));
+        } else {
+            Path resultsDir = Paths.get(System.getProperty("benchmark.results-dir", "results"));
+            Files.createDirectories(resultsDir);
+            String version = System.getProperty("benchmark.version", "dev");
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(resultsDir.resolve("jmh-" + version + "-" + timestamp + ".json").toString());
+        }
+        
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.teamlogger.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.teamlogger.backend.dto.DashboardStatsDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DashboardStatsSerializationBenchmark {
+    
+    // Number of users in productivityByUser, which dominates the payload on large teams
+    @Param({"10", "500"})
+    private int teamSize;
+    
+    private ObjectMapper objectMapper;
+    
+    private DashboardStatsDto stats;
+    
+    private String json;
+    
+    @Setup
+    public void setUp() throws Exception {
+        // Same setup Spring Boot applies to its own mapper
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        
+        stats = new DashboardStatsDto();
+        stats.setTotalUsers((long) teamSize);
+        stats.setActiveUsers((long) teamSize);
+        stats.setOnlineUsers(teamSize / 2L);
+        stats.setTotalHoursToday(teamSize * 6.5);
+        stats.setTotalHoursThisWeek(teamSize * 32.0);
+        stats.setTotalHoursThisMonth(teamSize * 140.0);
+        stats.setAverageHoursPerDay(7.4);
+        stats.setOvertimeHours(12.5);
+        stats.setTotalProjects(25L);
+        stats.setActiveProjects(18L);
+        stats.setCompletedProjects(7L);
+        stats.setAverageProjectProgress(63.0);
+        stats.setTotalTasks(400L);
+        stats.setCompletedTasks(250L);
+        stats.setInProgressTasks(120L);
+        stats.setOverdueTasks(30L);
+        stats.setTaskCompletionRate(62.5);
+        
+        Map<String, Double> productivityByUser = new LinkedHashMap<>();
+        for (int i = 0; i < teamSize; i++) {
+            productivityByUser.put("User " + i, 30.0 + i % 15);
+        }
+        stats.setProductivityByUser(productivityByUser);
+        
+        Map<String, Double> hoursByProject = new LinkedHashMap<>();
+        for (int i = 0; i < 25; i++) {
+            hoursByProject.put("Project " + i, 100.0 + i);
+        }
+        stats.setHoursByProject(hoursByProject);
+        
+        List<DashboardStatsDto.ChartDataPoint> weeklyHours = new ArrayList<>();
+        LocalDate day = LocalDate.of(2025, 1, 6);
+        for (int i = 0; i < 7; i++) {
+            weeklyHours.add(new DashboardStatsDto.ChartDataPoint(day.plusDays(i).getDayOfWeek().name(), 7.5, day.plusDays(i).toString()));
+        }
+        stats.setWeeklyHours(weeklyHours);
+        
+        List<DashboardStatsDto.ChartDataPoint> monthlyHours = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            monthlyHours.add(new DashboardStatsDto.ChartDataPoint(String.valueOf(i + 1), 7.0, day.plusDays(i).toString()));
+        }
+        stats.setMonthlyHours(monthlyHours);
+        
+        List<DashboardStatsDto.RecentActivityDto> activities = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            activities.add(new DashboardStatsDto.RecentActivityDto("PUNCH_IN", "Punched in", "User " + i,
+                    "2025-01-06T08:" + (10 + i) + ":00", "/time-entries/" + i));
+        }
+        stats.setRecentActivities(activities);
+        stats.setUnreadNotifications(3L);
+        stats.setAlerts(List.of("3 overdue tasks", "2 users above overtime threshold"));
+        
+        json = objectMapper.writeValueAsString(stats);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(stats);
+    }
+    
+    @Benchmark
+    public DashboardStatsDto deserialize() throws Exception {
+        return objectMapper.readValue(json, DashboardStatsDto.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.teamlogger.benchmarks;
+
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.security.JwtAuthenticationFilter;
+import com.teamlogger.backend.security.JwtTokenProvider;
+import com.teamlogger.backend.security.TokenVersionRegistry;
+import com.teamlogger.backend.service.PresenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Full pass through the filter: header parsing, claims lookup, principal, security context and presence heartbeat
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    
+    private JwtAuthenticationFilter filter;
+    
+    private String authorizationHeader;
+    
+    @Setup
+    public void setUp() {
+        JwtTokenProvider tokenProvider = BenchmarkFixtures.tokenProvider(10000);
+        User user = BenchmarkFixtures.user(42L);
+        authorizationHeader = "Bearer " + BenchmarkFixtures.token(tokenProvider, user);
+        
+        // Tokens carry user claims, so the user details lookup should never be reached
+        UserDetailsService userDetailsService = username -> {
+            throw new UsernameNotFoundException(username);
+        };
+        
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        // Heartbeats only touch memory; the transaction manager is only used by flushes, which never run here
+        ReflectionTestUtils.setField(filter, "presenceService", new PresenceService(null));
+        // The version is seeded and never goes stale, so no request reaches the user repository
+        TokenVersionRegistry tokenVersionRegistry = new TokenVersionRegistry();
+        ReflectionTestUtils.setField(tokenVersionRegistry, "checkInterval", Long.MAX_VALUE);
+        tokenVersionRegistry.setVersion(user.getId(), user.getTokenVersion());
+        ReflectionTestUtils.setField(filter, "tokenVersionRegistry", tokenVersionRegistry);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Benchmark
+    public Authentication authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard/stats");
+        request.addHeader("Authorization", authorizationHeader);
+        
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,69 @@
+package com.teamlogger.benchmarks;
+
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+    
+    private JwtTokenProvider cachingProvider;
+    
+    // Holds one entry while tokens are cycled, so every validation verifies the signature
+    private JwtTokenProvider uncachedProvider;
+    
+    private User user;
+    
+    private String token;
+    
+    private String[] distinctTokens;
+    
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        cachingProvider = BenchmarkFixtures.tokenProvider(10000);
+        uncachedProvider = BenchmarkFixtures.tokenProvider(1);
+        user = BenchmarkFixtures.user(42L);
+        token = BenchmarkFixtures.token(cachingProvider, user);
+        
+        distinctTokens = new String[1024];
+        for (int i = 0; i < distinctTokens.length; i++) {
+            distinctTokens[i] = BenchmarkFixtures.token(cachingProvider, BenchmarkFixtures.user(i + 1L));
+        }
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return BenchmarkFixtures.token(cachingProvider, user);
+    }
+    
+    @Benchmark
+    public Claims validateCached() {
+        return cachingProvider.getValidatedClaims(token);
+    }
+    
+    @Benchmark
+    public Claims validateUncached() {
+        String distinctToken = distinctTokens[next];
+        next = (next + 1) % distinctTokens.length;
+        return uncachedProvider.getValidatedClaims(distinctToken);
+    }
+}
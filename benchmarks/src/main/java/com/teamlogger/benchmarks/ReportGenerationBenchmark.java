@@ -0,0 +1,112 @@
+package com.teamlogger.benchmarks;
+
+import com.teamlogger.backend.entity.Project;
+import com.teamlogger.backend.entity.Task;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.service.ProductivityReportService;
+import com.teamlogger.backend.service.TimesheetExportService;
+import com.teamlogger.backend.service.TimesheetWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Report writers only; the database side of an export is not measured here
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportGenerationBenchmark {
+    
+    @Param({"1000", "20000"})
+    private int rows;
+    
+    private final LocalDate startDate = LocalDate.of(2025, 1, 1);
+    
+    private LocalDate endDate;
+    
+    private List<TimeEntry> entries;
+    
+    private List<ProductivityReportService.UserProductivity> productivity;
+    
+    private TimesheetWriter timesheetWriter;
+    
+    private ProductivityReportService productivityReportService;
+    
+    @Setup
+    public void setUp() {
+        timesheetWriter = new TimesheetWriter();
+        productivityReportService = new ProductivityReportService();
+        
+        Project project = new Project();
+        project.setId(1L);
+        project.setName("Benchmark Project");
+        Task task = new Task();
+        task.setId(1L);
+        task.setTitle("Benchmark Task");
+        
+        entries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime punchIn = startDate.atTime(8, 0).plusDays(i / 4).plusHours(i % 4 * 2L);
+            TimeEntry entry = new TimeEntry();
+            entry.setId((long) i);
+            entry.setProject(project);
+            entry.setTask(task);
+            entry.setPunchInTime(punchIn);
+            entry.setPunchOutTime(punchIn.plusHours(9));
+            entry.setLunchInTime(punchIn.plusHours(4));
+            entry.setLunchOutTime(punchIn.plusHours(4).plusMinutes(30));
+            entry.setNotes(i % 3 == 0 ? "Worked on item " + i : null);
+            entry.calculateHours();
+            entries.add(entry);
+        }
+        endDate = entries.get(entries.size() - 1).getPunchInTime().toLocalDate();
+        
+        // One row per user, so the productivity sheet is sized like a team of that many users
+        productivity = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            productivity.add(new ProductivityReportService.UserProductivity((long) i, "user" + i, "Bench User " + i,
+                    160.0 + i % 20, i % 7, 22, (160.0 + i % 20) / 22));
+        }
+    }
+    
+    @Benchmark
+    public void timesheetExcel() throws Exception {
+        timesheetWriter.write(entries.iterator(), startDate, endDate, TimesheetExportService.ExportFormat.EXCEL,
+                OutputStream.nullOutputStream());
+    }
+    
+    @Benchmark
+    public void timesheetPdf() throws Exception {
+        timesheetWriter.write(entries.iterator(), startDate, endDate, TimesheetExportService.ExportFormat.PDF,
+                OutputStream.nullOutputStream());
+    }
+    
+    @Benchmark
+    public void timesheetCsv() throws Exception {
+        timesheetWriter.write(entries.iterator(), startDate, endDate, TimesheetExportService.ExportFormat.CSV,
+                OutputStream.nullOutputStream());
+    }
+    
+    @Benchmark
+    public void productivityExcel() throws Exception {
+        productivityReportService.writeExcel(productivity, startDate, endDate, OutputStream.nullOutputStream(),
+                progress -> { });
+    }
+}
@@ -0,0 +1,46 @@
+package com.teamlogger.benchmarks;
+
+import com.teamlogger.backend.entity.TimeEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeEntryBenchmark {
+    
+    private TimeEntry entry;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        LocalDateTime punchIn = LocalDateTime.of(2025, 1, 6, 8, 30);
+        entry = new TimeEntry();
+        entry.setPunchInTime(punchIn);
+        entry.setBreakStartTime(punchIn.plusHours(2));
+        entry.setBreakEndTime(punchIn.plusHours(2).plusMinutes(15));
+        entry.setLunchInTime(punchIn.plusHours(4));
+        entry.setLunchOutTime(punchIn.plusHours(4).plusMinutes(45));
+        entry.setPunchOutTime(punchIn.plusHours(10));
+    }
+    
+    @Benchmark
+    public Double calculateHours() {
+        entry.calculateHours();
+        return entry.getOvertimeHours();
+    }
+}
@@ -12,7 +12,9 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import okhttp3.Call;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -99,6 +101,8 @@ public class DashboardController {
     private final AuthService authService = new AuthService();
     private final ObjectMapper objectMapper = new ObjectMapper();
     private Timer timer;
+    private volatile Call dashboardStream;
+    private volatile boolean streaming = true;
     private boolean isWorking = false;
     private LocalDateTime punchInTime;
     
@@ -123,6 +127,9 @@ public class DashboardController {
         // Load initial data
         loadDashboardData();
         
+        // Figures then arrive as they change instead of being re-fetched
+        startDashboardStream();
+        
         // Set up button states
         updateButtonStates();
     }
@@ -156,6 +163,12 @@ public class DashboardController {
                 
                 Platform.runLater(() -> {
                     updateDashboardStats(stats);
+                    
+                    // Add some sample activities
+                    ObservableList<String> activities = activityListView.getItems();
+                    activities.clear();
+                    activities.add("Logged in at " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
+                    activities.add("Dashboard loaded successfully");
                 });
                 
             } catch (Exception e) {
@@ -167,6 +180,47 @@ public class DashboardController {
         }).start();
     }
     
+    // One reader thread for the life of the view; reconnects after a pause when the stream drops
+    private void startDashboardStream() {
+        Thread thread = new Thread(() -> {
+            while (streaming) {
+                try {
+                    Call call = apiService.newDashboardStreamCall(authService.getAuthToken());
+                    dashboardStream = call;
+                    apiService.readEvents(call, (event, data) -> {
+                        try {
+                            JsonNode figures = objectMapper.readTree(data);
+                            Platform.runLater(() -> updateDashboardStats(figures));
+                        } catch (IOException e) {
+                            logger.warn("Ignoring unreadable dashboard event", e);
+                        }
+                    });
+                } catch (Exception e) {
+                    if (streaming) {
+                        logger.warn("Dashboard stream closed, reconnecting: {}", e.getMessage());
+                    }
+                }
+                
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "dashboard-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void stopDashboardStream() {
+        streaming = false;
+        Call call = dashboardStream;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+    
+    // Applies a full stats payload or a delta; only the figures present are updated
     private void updateDashboardStats(JsonNode stats) {
         if (stats.has("totalHoursThisWeek")) {
             weekHoursLabel.setText(String.format("%.1fh", stats.get("totalHoursThisWeek").asDouble()));
@@ -183,12 +237,6 @@ public class DashboardController {
         if (stats.has("overdueTasks")) {
             pendingTasksLabel.setText(String.valueOf(stats.get("overdueTasks").asInt()));
         }
-        
-        // Add some sample activities
-        ObservableList<String> activities = activityListView.getItems();
-        activities.clear();
-        activities.add("Logged in at " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
-        activities.add("Dashboard loaded successfully");
     }
     
     @FXML
@@ -247,9 +295,6 @@ public class DashboardController {
                     // Add to activity list
                     activityListView.getItems().add(0, "Punched out at " + 
                             LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
-                    
-                    // Reload dashboard data
-                    loadDashboardData();
                 });
                 
             } catch (Exception e) {
@@ -294,6 +339,7 @@ public class DashboardController {
                     if (timer != null) {
                         timer.cancel();
                     }
+                    stopDashboardStream();
                     switchToLogin();
                 });
             }
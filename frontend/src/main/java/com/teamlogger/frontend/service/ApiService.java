@@ -3,26 +3,39 @@ package com.teamlogger.frontend.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
+import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 public class ApiService {
     
     private static final Logger logger = LoggerFactory.getLogger(ApiService.class);
-    private static final String BASE_URL = "http://localhost:8080/api";
+    private static final String DEFAULT_BASE_URL = "http://localhost:8080/api";
     
+    private final String baseUrl;
     private final OkHttpClient client;
+    private final OkHttpClient streamClient;
     private final ObjectMapper objectMapper;
     
     public ApiService() {
+        this(DEFAULT_BASE_URL);
+    }
+    
+    public ApiService(String baseUrl) {
+        this.baseUrl = baseUrl;
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.SECONDS)
                 .build();
+        // The server sends a keepalive every 30 seconds, so silence longer than this means a dead connection
+        this.streamClient = client.newBuilder()
+                .readTimeout(90, TimeUnit.SECONDS)
+                .build();
         
         this.objectMapper = new ObjectMapper();
     }
@@ -32,7 +45,7 @@ public class ApiService {
         
         RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
         Request request = new Request.Builder()
-                .url(BASE_URL + "/auth/login")
+                .url(baseUrl + "/auth/login")
                 .post(body)
                 .build();
         
@@ -49,7 +62,7 @@ public class ApiService {
         
         RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
         Request request = new Request.Builder()
-                .url(BASE_URL + "/auth/forgot-password")
+                .url(baseUrl + "/auth/forgot-password")
                 .post(body)
                 .build();
         
@@ -63,7 +76,7 @@ public class ApiService {
     
     public String getDashboardStats(String token) throws IOException {
         Request request = new Request.Builder()
-                .url(BASE_URL + "/dashboard/stats")
+                .url(baseUrl + "/dashboard/stats")
                 .addHeader("Authorization", "Bearer " + token)
                 .get()
                 .build();
@@ -76,8 +89,50 @@ public class ApiService {
         }
     }
     
+    // Cancel the returned call to close the stream
+    public Call newDashboardStreamCall(String token) {
+        Request request = new Request.Builder()
+                .url(baseUrl + "/dashboard/stream")
+                .addHeader("Authorization", "Bearer " + token)
+                .addHeader("Accept", "text/event-stream")
+                .get()
+                .build();
+        return streamClient.newCall(request);
+    }
+    
+    // Blocks, passing each server-sent event's name and data to the listener until the stream ends
+    public void readEvents(Call call, BiConsumer<String, String> listener) throws IOException {
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected response: " + response);
+            }
+            
+            BufferedSource source = response.body().source();
+            String event = "message";
+            StringBuilder data = new StringBuilder();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (line.isEmpty()) {
+                    if (data.length() > 0) {
+                        listener.accept(event, data.toString());
+                    }
+                    event = "message";
+                    data.setLength(0);
+                } else if (line.startsWith("event:")) {
+                    event = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.substring(5).trim());
+                }
+                // Lines starting with ':' are keepalive comments
+            }
+        }
+    }
+    
     public String punchIn(String token, Long projectId, Long taskId, String notes) throws IOException {
-        String url = BASE_URL + "/time-tracking/punch-in";
+        String url = baseUrl + "/time-tracking/punch-in";
         if (projectId != null) {
             url += "?projectId=" + projectId;
         }
@@ -103,7 +158,7 @@ public class ApiService {
     }
     
     public String punchOut(String token, String notes) throws IOException {
-        String url = BASE_URL + "/time-tracking/punch-out";
+        String url = baseUrl + "/time-tracking/punch-out";
         if (notes != null && !notes.trim().isEmpty()) {
             url += "?notes=" + notes;
         }
@@ -122,9 +177,40 @@ public class ApiService {
         }
     }
     
+    public String startLunch(String token) throws IOException {
+        return postTimeTracking(token, "/time-tracking/lunch/start");
+    }
+    
+    public String endLunch(String token) throws IOException {
+        return postTimeTracking(token, "/time-tracking/lunch/end");
+    }
+    
+    public String startBreak(String token) throws IOException {
+        return postTimeTracking(token, "/time-tracking/break/start");
+    }
+    
+    public String endBreak(String token) throws IOException {
+        return postTimeTracking(token, "/time-tracking/break/end");
+    }
+    
+    private String postTimeTracking(String token, String path) throws IOException {
+        Request request = new Request.Builder()
+                .url(baseUrl + path)
+                .addHeader("Authorization", "Bearer " + token)
+                .post(RequestBody.create("", MediaType.get("application/json")))
+                .build();
+        
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected response: " + response);
+            }
+            return response.body().string();
+        }
+    }
+    
     public String getCurrentTimeEntry(String token) throws IOException {
         Request request = new Request.Builder()
-                .url(BASE_URL + "/time-tracking/current")
+                .url(baseUrl + "/time-tracking/current")
                 .addHeader("Authorization", "Bearer " + token)
                 .get()
                 .build();
@@ -139,7 +225,7 @@ public class ApiService {
     
     public String logout(String token) throws IOException {
         Request request = new Request.Builder()
-                .url(BASE_URL + "/auth/logout")
+                .url(baseUrl + "/auth/logout")
                 .addHeader("Authorization", "Bearer " + token)
                 .post(RequestBody.create("", MediaType.get("application/json")))
                 .build();
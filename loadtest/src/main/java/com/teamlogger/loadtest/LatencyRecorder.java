@@ -0,0 +1,117 @@
+package com.teamlogger.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-endpoint latency samples, error counts and the time window each endpoint was busy
+public class LatencyRecorder {
+    
+    private final Map<String, EndpointSamples> endpoints = new ConcurrentHashMap<>();
+    
+    private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+    
+    public <T> T record(String endpoint, Call<T> call) {
+        EndpointSamples samples = endpoints.computeIfAbsent(endpoint, name -> {
+            order.add(name);
+            return new EndpointSamples();
+        });
+        
+        long start = System.nanoTime();
+        try {
+            T result = call.execute();
+            samples.success(start, System.nanoTime());
+            return result;
+        } catch (Exception e) {
+            samples.failure(start, System.nanoTime());
+            return null;
+        }
+    }
+    
+    public List<EndpointStats> summarize() {
+        List<EndpointStats> stats = new ArrayList<>();
+        for (String name : order) {
+            stats.add(endpoints.get(name).summarize(name));
+        }
+        return stats;
+    }
+    
+    @FunctionalInterface
+    public interface Call<T> {
+        T execute() throws Exception;
+    }
+    
+    public record EndpointStats(String endpoint, long requests, long errors, double p50Millis, double p90Millis,
+                                double p99Millis, double maxMillis, double throughputPerSecond) {
+        
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("endpoint", endpoint);
+            map.put("requests", requests);
+            map.put("errors", errors);
+            map.put("p50Ms", p50Millis);
+            map.put("p90Ms", p90Millis);
+            map.put("p99Ms", p99Millis);
+            map.put("maxMs", maxMillis);
+            map.put("throughputPerSecond", throughputPerSecond);
+            return map;
+        }
+    }
+    
+    private static class EndpointSamples {
+        
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        
+        private final LongAdder errors = new LongAdder();
+        
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        
+        private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+        
+        void success(long start, long end) {
+            latencies.add(end - start);
+            window(start, end);
+        }
+        
+        void failure(long start, long end) {
+            errors.increment();
+            window(start, end);
+        }
+        
+        private void window(long start, long end) {
+            firstStart.accumulateAndGet(start, Math::min);
+            lastEnd.accumulateAndGet(end, Math::max);
+        }
+        
+        EndpointStats summarize(String name) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            long requests = sorted.length + errors.sum();
+            long windowNanos = Math.max(1, lastEnd.get() - firstStart.get());
+            return new EndpointStats(name, requests, errors.sum(),
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted.length > 0 ? toMillis(sorted[sorted.length - 1]) : 0.0,
+                    sorted.length / (windowNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        }
+        
+        // Nearest-rank percentile
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return toMillis(sorted[Math.max(0, rank - 1)]);
+        }
+        
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
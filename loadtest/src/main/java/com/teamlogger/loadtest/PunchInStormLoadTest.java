@@ -0,0 +1,262 @@
+package com.teamlogger.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamlogger.backend.BackendApplication;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.frontend.service.ApiService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Boots the backend on an embedded database and has every seeded user punch in at the same moment
+public class PunchInStormLoadTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PunchInStormLoadTest.class);
+    
+    private static final String PASSWORD = "loadtest-password";
+    
+    private static final int SEED_BATCH_SIZE = 500;
+    
+    public static void main(String[] args) throws Exception {
+        int users = 500;
+        int concurrency = 100;
+        int cycles = 3;
+        long thinkMillis = 0;
+        boolean compareThreads = false;
+        String reportPath = null;
+        List<String> springArgs = new ArrayList<>();
+        
+        for (String arg : args) {
+            if (arg.startsWith("--users=")) {
+                users = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--cycles=")) {
+                cycles = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--think-ms=")) {
+                thinkMillis = Long.parseLong(value(arg));
+            } else if (arg.equals("--compare-threads")) {
+                compareThreads = true;
+            } else if (arg.startsWith("--report=")) {
+                reportPath = value(arg);
+            } else {
+                springArgs.add(arg);
+            }
+        }
+        
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", users);
+        report.put("concurrency", concurrency);
+        report.put("cycles", cycles);
+        report.put("thinkMillis", thinkMillis);
+        
+        if (compareThreads) {
+            // Same profile against a fresh backend per mode; the client side is identical in both runs
+            List<Run> runs = new ArrayList<>();
+            for (boolean virtualThreads : new boolean[] {false, true}) {
+                List<String> runArgs = new ArrayList<>(springArgs);
+                runArgs.add("--spring.threads.virtual.enabled=" + virtualThreads);
+                runs.add(run(runArgs, users, concurrency, cycles, thinkMillis));
+            }
+            runs.forEach(PunchInStormLoadTest::printSummary);
+            printComparison(runs.get(0), runs.get(1));
+            report.put("runs", runs.stream().map(Run::toMap).toList());
+        } else {
+            Run run = run(springArgs, users, concurrency, cycles, thinkMillis);
+            printSummary(run);
+            report.putAll(run.toMap());
+        }
+        
+        if (reportPath != null) {
+            writeReport(objectMapper, reportPath, report);
+        }
+    }
+    
+    private static Run run(List<String> springArgs, int users, int concurrency, int cycles, long thinkMillis) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class, LoadTestConfiguration.class)
+                .profiles("loadtest")
+                .run(springArgs.toArray(String[]::new));
+        
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+            String threads = context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                    ? "virtual" : "platform";
+            List<String> usernames = seedUsers(context, users);
+            
+            ApiService api = new ApiService(baseUrl);
+            ObjectMapper objectMapper = new ObjectMapper();
+            LatencyRecorder recorder = new LatencyRecorder();
+            
+            logger.info("Logging in {} users against {} with {} client threads ({} server threads)", users, baseUrl,
+                    concurrency, threads);
+            String[] tokens = new String[usernames.size()];
+            runAll(clients, usernames.size(), i -> {
+                String response = recorder.record("login", () -> api.login(usernames.get(i), PASSWORD, false));
+                if (response != null) {
+                    tokens[i] = objectMapper.readTree(response).get("token").asText();
+                }
+            });
+            
+            long loggedIn = Arrays.stream(tokens).filter(Objects::nonNull).count();
+            logger.info("{} of {} users logged in; running {} punch cycles", loggedIn, users, cycles);
+            
+            for (int cycle = 1; cycle <= cycles; cycle++) {
+                long started = System.nanoTime();
+                runAll(clients, tokens.length, i -> {
+                    String token = tokens[i];
+                    if (token == null) {
+                        return;
+                    }
+                    recorder.record("punch-in", () -> api.punchIn(token, null, null, null));
+                    pause(thinkMillis);
+                    recorder.record("break/start", () -> api.startBreak(token));
+                    pause(thinkMillis);
+                    recorder.record("break/end", () -> api.endBreak(token));
+                    pause(thinkMillis);
+                    recorder.record("punch-out", () -> api.punchOut(token, null));
+                });
+                logger.info("Cycle {}/{} finished in {} ms", cycle, cycles,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+            
+            return new Run(threads, recorder.summarize());
+        } finally {
+            clients.shutdownNow();
+            context.close();
+        }
+    }
+    
+    private static List<String> seedUsers(ConfigurableApplicationContext context, int count) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        // BCrypt is deliberately slow, so every seeded user shares one hash
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        
+        List<String> usernames = new ArrayList<>(count);
+        List<User> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setUsername("loadtest" + i);
+            user.setEmail("loadtest" + i + "@loadtest.local");
+            user.setPassword(passwordHash);
+            user.setFirstName("Load");
+            user.setLastName("Test " + i);
+            batch.add(user);
+            usernames.add(user.getUsername());
+            if (batch.size() == SEED_BATCH_SIZE) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        userRepository.saveAll(batch);
+        logger.info("Seeded {} users", count);
+        return usernames;
+    }
+    
+    // Releases all tasks together so requests arrive as a burst, then waits for every one to finish
+    private static void runAll(ExecutorService clients, int count, UserTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            clients.execute(() -> {
+                try {
+                    start.await();
+                    task.run(index);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    logger.warn("Client task {} failed: {}", index, e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await();
+    }
+    
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+    
+    private static void printSummary(Run run) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%nServer threads: %s%n", run.threads()));
+        table.append(String.format("%-12s %9s %7s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms", "req/s"));
+        for (LatencyRecorder.EndpointStats endpoint : run.endpoints()) {
+            table.append(String.format("%-12s %9d %7d %10.2f %10.2f %10.2f %10.2f %10.1f%n",
+                    endpoint.endpoint(), endpoint.requests(), endpoint.errors(), endpoint.p50Millis(),
+                    endpoint.p90Millis(), endpoint.p99Millis(), endpoint.maxMillis(), endpoint.throughputPerSecond()));
+        }
+        System.out.println(table);
+    }
+    
+    private static void printComparison(Run platform, Run virtual) {
+        Map<String, LatencyRecorder.EndpointStats> virtualByEndpoint = new LinkedHashMap<>();
+        virtual.endpoints().forEach(endpoint -> virtualByEndpoint.put(endpoint.endpoint(), endpoint));
+        
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%nPlatform vs virtual server threads%n"));
+        table.append(String.format("%-12s %12s %12s %8s %12s %12s%n",
+                "endpoint", "req/s plat", "req/s virt", "change", "p99 ms plat", "p99 ms virt"));
+        for (LatencyRecorder.EndpointStats before : platform.endpoints()) {
+            LatencyRecorder.EndpointStats after = virtualByEndpoint.get(before.endpoint());
+            if (after == null) {
+                continue;
+            }
+            double change = before.throughputPerSecond() > 0
+                    ? (after.throughputPerSecond() / before.throughputPerSecond() - 1) * 100 : 0.0;
+            table.append(String.format("%-12s %12.1f %12.1f %+7.1f%% %12.2f %12.2f%n",
+                    before.endpoint(), before.throughputPerSecond(), after.throughputPerSecond(), change,
+                    before.p99Millis(), after.p99Millis()));
+        }
+        System.out.println(table);
+    }
+    
+    private static void writeReport(ObjectMapper objectMapper, String path, Map<String, Object> report) throws Exception {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        logger.info("Wrote report to {}", file.getAbsolutePath());
+    }
+    
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+    
+    private record Run(String threads, List<LatencyRecorder.EndpointStats> endpoints) {
+        
+        Map<String, Object> toMap() {
+            return Map.of(
+                    "threads", threads,
+                    "endpoints", endpoints.stream().map(LatencyRecorder.EndpointStats::toMap).toList());
+        }
+    }
+    
+    @FunctionalInterface
+    private interface UserTask {
+        void run(int index) throws Exception;
+    }
+}
@@ -3,6 +3,7 @@ package com.teamlogger.backend.controller;
 import com.teamlogger.backend.dto.LoginRequest;
 import com.teamlogger.backend.dto.UserDto;
 import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.security.AuthenticatedUser;
 import com.teamlogger.backend.security.JwtTokenProvider;
 import com.teamlogger.backend.service.UserService;
 import jakarta.validation.Valid;
@@ -69,6 +70,13 @@ public class AuthController {
         return ResponseEntity.ok().body(Map.of("message", "Logged out successfully"));
     }
     
+    @PostMapping("/heartbeat")
+    public ResponseEntity<?> heartbeat(Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        userService.heartbeat(user.getId());
+        return ResponseEntity.ok().build();
+    }
+    
     @PostMapping("/forgot-password")
     public ResponseEntity<?> forgotPassword(@RequestParam String email) {
         try {
@@ -122,8 +130,8 @@ public class AuthController {
         dto.setFirstName(user.getFirstName());
         dto.setLastName(user.getLastName());
         dto.setRole(user.getRole());
-        dto.setIsActive(user.isActive());
-        dto.setIsOnline(user.isOnline());
+        dto.setActive(user.isActive());
+        dto.setOnline(user.isOnline());
         dto.setLastLogin(user.getLastLogin());
         dto.setCreatedAt(user.getCreatedAt());
         dto.setUpdatedAt(user.getUpdatedAt());
@@ -1,11 +1,18 @@
 package com.teamlogger.backend.controller;
 
 import com.teamlogger.backend.dto.DashboardStatsDto;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.metrics.QueryBudget;
+import com.teamlogger.backend.security.JwtTokenProvider;
 import com.teamlogger.backend.service.DashboardService;
 import com.teamlogger.backend.service.UserService;
+import com.teamlogger.backend.service.DashboardStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -17,10 +24,18 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
     
+    @Autowired
+    private DashboardStreamService dashboardStreamService;
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    
+    // One aggregate query per figure, plus recent activity and alerts
     @GetMapping("/stats")
+    @QueryBudget(25)
     public ResponseEntity<?> getDashboardStats(@RequestHeader("Authorization") String token) {
         try {
             Long userId = getUserIdFromToken(token);
@@ -31,6 +46,12 @@ public class DashboardController {
         }
     }
     
+    // Snapshot of the live figures, then only the ones that change; replaces polling /stats for them
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> streamDashboard(@RequestHeader("Authorization") String token) {
+        return dashboardStreamService.subscribe(getUserIdFromToken(token));
+    }
+    
     @GetMapping("/user-stats")
     public ResponseEntity<?> getUserStats(@RequestHeader("Authorization") String token) {
         try {
@@ -43,10 +64,14 @@ public class DashboardController {
     }
     
     @GetMapping("/team-stats")
-    public ResponseEntity<?> getTeamStats(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getTeamStats(@RequestHeader("Authorization") String token,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "50") int size,
+                                        @RequestParam(defaultValue = "hours") String sortBy,
+                                        @RequestParam(defaultValue = "desc") String direction) {
         try {
             Long userId = getUserIdFromToken(token);
-            Map<String, Object> teamStats = dashboardService.getTeamStats(userId);
+            Map<String, Object> teamStats = dashboardService.getTeamStats(userId, page, size, sortBy, direction);
             return ResponseEntity.ok(teamStats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -76,10 +101,11 @@ public class DashboardController {
     
     @GetMapping("/productivity-chart")
     public ResponseEntity<?> getProductivityChart(@RequestHeader("Authorization") String token,
-                                                @RequestParam String period) {
+                                                @RequestParam String period,
+                                                @RequestParam(required = false) String granularity) {
         try {
             Long userId = getUserIdFromToken(token);
-            return ResponseEntity.ok(dashboardService.getProductivityChart(userId, period));
+            return ResponseEntity.ok(dashboardService.getProductivityChart(userId, period, granularity));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -95,7 +121,11 @@ public class DashboardController {
     }
     
     private Long getUserIdFromToken(String token) {
-        String username = token.substring(7); // Remove "Bearer "
-        return userService.loadUserByUsername(username).getId();
+        String jwt = token.substring(7); // Remove "Bearer "
+        Long userId = tokenProvider.getUserIdFromToken(jwt);
+        if (userId != null) {
+            return userId;
+        }
+        return ((User) userService.loadUserByUsername(tokenProvider.getUsernameFromToken(jwt))).getId();
     }
 } 
\ No newline at end of file
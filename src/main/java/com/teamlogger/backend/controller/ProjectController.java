@@ -1,11 +1,17 @@
 package com.teamlogger.backend.controller;
 
+import com.teamlogger.backend.dto.CursorPage;
+import com.teamlogger.backend.dto.ProjectDto;
 import com.teamlogger.backend.entity.Project;
 import com.teamlogger.backend.entity.User;
 import com.teamlogger.backend.repository.ProjectRepository;
 import com.teamlogger.backend.repository.UserRepository;
 import com.teamlogger.backend.service.EmailService;
+import com.teamlogger.backend.service.PresenceService;
+import com.teamlogger.backend.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -30,11 +36,17 @@ public class ProjectController {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private SearchService searchService;
+    
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Project>> getAllProjects() {
-        List<Project> projects = projectRepository.findAll();
-        return ResponseEntity.ok(projects);
+    public ResponseEntity<CursorPage<ProjectDto>> getAllProjects(@RequestParam(required = false) Long cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(projectRepository.findIdsAfter(afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/{id}")
@@ -62,8 +74,7 @@ public class ProjectController {
         if (project.getMembers() != null) {
             for (User member : project.getMembers()) {
                 emailService.sendProjectAssignmentEmail(
-                        member.getEmail(),
-                        member.getFullName(),
+                        member,
                         project.getName(),
                         currentUser.getFullName()
                 );
@@ -90,7 +101,7 @@ public class ProjectController {
             project.setProgressPercentage(projectDetails.getProgressPercentage());
             project.setBudget(projectDetails.getBudget());
             project.setClientName(projectDetails.getClientName());
-            project.setIsArchived(projectDetails.isIsArchived());
+            project.setArchived(projectDetails.isArchived());
             project.setUpdatedAt(LocalDateTime.now());
             
             Project updatedProject = projectRepository.save(project);
@@ -111,37 +122,57 @@ public class ProjectController {
     
     @GetMapping("/manager/{managerId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<Project>> getProjectsByManager(@PathVariable Long managerId) {
-        List<Project> projects = projectRepository.findByManagerId(managerId);
-        return ResponseEntity.ok(projects);
+    public ResponseEntity<CursorPage<ProjectDto>> getProjectsByManager(@PathVariable Long managerId,
+                                                                       @RequestParam(required = false) Long cursor,
+                                                                       @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(projectRepository.findIdsByManagerAfter(managerId, afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/member/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Project>> getProjectsByMember(@PathVariable Long userId) {
-        List<Project> projects = projectRepository.findProjectsByMemberId(userId);
-        return ResponseEntity.ok(projects);
+    public ResponseEntity<CursorPage<ProjectDto>> getProjectsByMember(@PathVariable Long userId,
+                                                                      @RequestParam(required = false) Long cursor,
+                                                                      @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(projectRepository.findIdsByMemberAfter(userId, afterId(cursor), pageOf(size))));
+    }
+    
+    @GetMapping("/{id}/online-members")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
+    public ResponseEntity<List<User>> getOnlineMembers(@PathVariable Long id) {
+        Optional<Project> project = projectRepository.findById(id);
+        return project.map(p -> ResponseEntity.ok(presenceService.getOnlineMembers(p.getMembers())))
+                .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Project>> getProjectsByStatus(@PathVariable Project.ProjectStatus status) {
-        List<Project> projects = projectRepository.findByStatus(status);
-        return ResponseEntity.ok(projects);
+    public ResponseEntity<CursorPage<ProjectDto>> getProjectsByStatus(@PathVariable Project.ProjectStatus status,
+                                                                      @RequestParam(required = false) Long cursor,
+                                                                      @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(projectRepository.findIdsByStatusAfter(status, afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/overdue")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<Project>> getOverdueProjects() {
-        List<Project> projects = projectRepository.findOverdueProjects(LocalDateTime.now());
-        return ResponseEntity.ok(projects);
+    public ResponseEntity<CursorPage<ProjectDto>> getOverdueProjects(@RequestParam(required = false) Long cursor,
+                                                                     @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(projectRepository.findOverdueIdsAfter(LocalDateTime.now(), afterId(cursor),
+                pageOf(size))));
     }
     
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Project>> searchProjects(@RequestParam String searchTerm) {
-        List<Project> projects = projectRepository.searchProjects(searchTerm);
-        return ResponseEntity.ok(projects);
+    public ResponseEntity<CursorPage<ProjectDto>> searchProjects(@RequestParam String searchTerm,
+                                                                 @RequestParam(required = false) Project.ProjectStatus status,
+                                                                 @RequestParam(required = false) Project.ProjectPriority priority,
+                                                                 @RequestParam(required = false) Integer cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        Slice<Project> projects = searchService.searchProjects(searchTerm, status, priority,
+                cursor != null ? Math.max(0, cursor) : 0, CursorPage.clampSize(size));
+        List<ProjectDto> items = projects.getContent().stream()
+                .map(this::convertToDto)
+                .toList();
+        return ResponseEntity.ok(CursorPage.ofPage(items, projects));
     }
     
     @PutMapping("/{id}/archive")
@@ -150,7 +181,7 @@ public class ProjectController {
         Optional<Project> projectOpt = projectRepository.findById(id);
         if (projectOpt.isPresent()) {
             Project project = projectOpt.get();
-            project.setIsArchived(true);
+            project.setArchived(true);
             project.setUpdatedAt(LocalDateTime.now());
             Project archivedProject = projectRepository.save(project);
             return ResponseEntity.ok(archivedProject);
@@ -164,7 +195,7 @@ public class ProjectController {
         Optional<Project> projectOpt = projectRepository.findById(id);
         if (projectOpt.isPresent()) {
             Project project = projectOpt.get();
-            project.setIsArchived(false);
+            project.setArchived(false);
             project.setUpdatedAt(LocalDateTime.now());
             Project unarchivedProject = projectRepository.save(project);
             return ResponseEntity.ok(unarchivedProject);
@@ -179,8 +210,51 @@ public class ProjectController {
                 "totalProjects", projectRepository.count(),
                 "activeProjects", projectRepository.countByStatus(Project.ProjectStatus.ACTIVE),
                 "completedProjects", projectRepository.countByStatus(Project.ProjectStatus.COMPLETED),
-                "overdueProjects", projectRepository.findOverdueProjects(LocalDateTime.now()).size(),
+                "overdueProjects", projectRepository.countOverdueProjects(LocalDateTime.now()),
                 "averageProgress", projectRepository.calculateAverageProjectProgress()
         ));
     }
+    
+    // Members are a collection, so the page is cut on ids and the projects are fetched with their graph after
+    private CursorPage<ProjectDto> toPage(Slice<Long> ids) {
+        List<ProjectDto> items = ids.isEmpty() ? List.of() : projectRepository.findWithMembersByIdIn(ids.getContent()).stream()
+                .map(this::convertToDto)
+                .toList();
+        return CursorPage.of(items, ids.hasNext(), project -> project.getId().toString());
+    }
+    
+    private static long afterId(Long cursor) {
+        return cursor != null ? cursor : 0L;
+    }
+    
+    private static PageRequest pageOf(Integer size) {
+        return PageRequest.of(0, CursorPage.clampSize(size));
+    }
+    
+    private ProjectDto convertToDto(Project project) {
+        ProjectDto dto = new ProjectDto();
+        dto.setId(project.getId());
+        dto.setName(project.getName());
+        dto.setDescription(project.getDescription());
+        dto.setPriority(project.getPriority());
+        dto.setStatus(project.getStatus());
+        dto.setStartDate(project.getStartDate());
+        dto.setEndDate(project.getEndDate());
+        dto.setDeadline(project.getDeadline());
+        if (project.getManager() != null) {
+            dto.setManagerId(project.getManager().getId());
+            dto.setManagerName(project.getManager().getFullName());
+        }
+        List<User> members = project.getMembers() != null ? project.getMembers() : List.of();
+        dto.setMembers(members.stream()
+                .map(member -> new ProjectDto.MemberDto(member.getId(), member.getUsername(), member.getFullName()))
+                .toList());
+        dto.setCreatedAt(project.getCreatedAt());
+        dto.setUpdatedAt(project.getUpdatedAt());
+        dto.setProgressPercentage(project.getProgressPercentage());
+        dto.setBudget(project.getBudget());
+        dto.setClientName(project.getClientName());
+        dto.setArchived(project.isArchived());
+        return dto;
+    }
 } 
\ No newline at end of file
@@ -1,18 +1,28 @@
 package com.teamlogger.backend.controller;
 
+import com.teamlogger.backend.dto.TimeEntryDto;
+import com.teamlogger.backend.entity.ReportJob;
 import com.teamlogger.backend.entity.TimeEntry;
 import com.teamlogger.backend.entity.User;
-import com.teamlogger.backend.repository.TimeEntryRepository;
 import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.backend.security.AuthenticatedUser;
 import com.teamlogger.backend.service.EmailService;
+import com.teamlogger.backend.service.ProductivityReportService;
+import com.teamlogger.backend.service.ReportJobService;
+import com.teamlogger.backend.service.TimeEntryArchiveService;
+import com.teamlogger.backend.service.TimesheetExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
@@ -21,6 +31,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -28,7 +39,7 @@ import java.util.Optional;
 public class ReportController {
     
     @Autowired
-    private TimeEntryRepository timeEntryRepository;
+    private TimeEntryArchiveService timeEntryArchiveService;
     
     @Autowired
     private UserRepository userRepository;
@@ -36,95 +47,75 @@ public class ReportController {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private TimesheetExportService timesheetExportService;
+    
+    @Autowired
+    private ProductivityReportService productivityReportService;
+    
+    @Autowired
+    private ReportJobService reportJobService;
+    
     @GetMapping("/timesheet")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<TimeEntry>> getTimesheet(
+    public ResponseEntity<List<TimeEntryDto>> getTimesheet(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long userId,
             Authentication authentication) {
         
-        Long targetUserId = userId;
-        if (targetUserId == null) {
-            String username = authentication.getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            targetUserId = currentUser.getId();
-        }
-        
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
         
-        List<TimeEntry> timeEntries = timeEntryRepository.findUserTimeEntriesInDateRange(
-                targetUserId, startDateTime, endDateTime);
+        List<TimeEntryDto> timeEntries = timeEntryArchiveService.findUserTimeEntriesInDateRange(
+                        resolveTargetUserId(userId, authentication), startDateTime, endDateTime).stream()
+                .map(this::convertToDto)
+                .toList();
         
         return ResponseEntity.ok(timeEntries);
     }
     
     @GetMapping("/timesheet/export/excel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<byte[]> exportTimesheetExcel(
+    public ResponseEntity<StreamingResponseBody> exportTimesheetExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long userId,
             Authentication authentication) {
         
-        Long targetUserId = userId;
-        if (targetUserId == null) {
-            String username = authentication.getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            targetUserId = currentUser.getId();
-        }
-        
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        List<TimeEntry> timeEntries = timeEntryRepository.findUserTimeEntriesInDateRange(
-                targetUserId, startDateTime, endDateTime);
-        
-        // Generate Excel file
-        byte[] excelData = generateExcelReport(timeEntries, startDate, endDate);
-        
         String filename = "timesheet_" + startDate + "_to_" + endDate + ".xlsx";
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(excelData);
+        return streamTimesheet(resolveTargetUserId(userId, authentication), startDate, endDate,
+                TimesheetExportService.ExportFormat.EXCEL, filename,
+                MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
     }
     
     @GetMapping("/timesheet/export/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<byte[]> exportTimesheetPdf(
+    public ResponseEntity<StreamingResponseBody> exportTimesheetPdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long userId,
             Authentication authentication) {
         
-        Long targetUserId = userId;
-        if (targetUserId == null) {
-            String username = authentication.getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            targetUserId = currentUser.getId();
-        }
-        
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        List<TimeEntry> timeEntries = timeEntryRepository.findUserTimeEntriesInDateRange(
-                targetUserId, startDateTime, endDateTime);
+        String filename = "timesheet_" + startDate + "_to_" + endDate + ".pdf";
         
-        // Generate PDF file
-        byte[] pdfData = generatePdfReport(timeEntries, startDate, endDate);
+        return streamTimesheet(resolveTargetUserId(userId, authentication), startDate, endDate,
+                TimesheetExportService.ExportFormat.PDF, filename, MediaType.APPLICATION_PDF);
+    }
+    
+    @GetMapping("/timesheet/export/csv")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
+    public ResponseEntity<StreamingResponseBody> exportTimesheetCsv(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long userId,
+            Authentication authentication) {
         
-        String filename = "timesheet_" + startDate + "_to_" + endDate + ".pdf";
+        String filename = "timesheet_" + startDate + "_to_" + endDate + ".csv";
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfData);
+        return streamTimesheet(resolveTargetUserId(userId, authentication), startDate, endDate,
+                TimesheetExportService.ExportFormat.CSV, filename, MediaType.parseMediaType("text/csv"));
     }
     
     @PostMapping("/timesheet/email")
@@ -136,25 +127,15 @@ public class ReportController {
             @RequestParam String emailTo,
             Authentication authentication) {
         
-        Long targetUserId = userId;
-        if (targetUserId == null) {
-            String username = authentication.getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            targetUserId = currentUser.getId();
-        }
-        
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        List<TimeEntry> timeEntries = timeEntryRepository.findUserTimeEntriesInDateRange(
-                targetUserId, startDateTime, endDateTime);
+        Long targetUserId = resolveTargetUserId(userId, authentication);
         
-        // Generate and email report
-        byte[] reportData = generateExcelReport(timeEntries, startDate, endDate);
+        // Generate and email report; the attachment has to be in memory for the mail anyway
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        timesheetExportService.exportTimesheet(targetUserId, startDate, endDate,
+                TimesheetExportService.ExportFormat.EXCEL, outputStream);
         String filename = "timesheet_" + startDate + "_to_" + endDate + ".xlsx";
         
-        emailService.sendTimesheetReport(emailTo, startDate, endDate, reportData, filename);
+        emailService.sendTimesheetReport(emailTo, startDate, endDate, outputStream.toByteArray(), filename);
         
         return ResponseEntity.ok("Timesheet report sent successfully");
     }
@@ -165,48 +146,83 @@ public class ReportController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        // Get all users
-        List<User> users = userRepository.findByIsActive(true);
-        
-        Map<String, Object> productivityData = Map.of(
-                "startDate", startDate,
-                "endDate", endDate,
-                "totalUsers", users.size(),
-                "userProductivity", generateUserProductivityData(users, startDateTime, endDateTime),
-                "summary", generateProductivitySummary(users, startDateTime, endDateTime)
-        );
-        
-        return ResponseEntity.ok(productivityData);
+        return ResponseEntity.ok(productivityReportService.getProductivityReport(startDate, endDate));
     }
     
     @GetMapping("/productivity/export/excel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<byte[]> exportProductivityExcel(
+    public ResponseEntity<StreamingResponseBody> exportProductivityExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        List<User> users = userRepository.findByIsActive(true);
-        
-        // Generate Excel file
-        byte[] excelData = generateProductivityExcelReport(users, startDateTime, endDateTime);
-        
         String filename = "productivity_report_" + startDate + "_to_" + endDate + ".xlsx";
         
+        StreamingResponseBody body = outputStream ->
+                productivityReportService.writeExcel(startDate, endDate, outputStream, progress -> { });
+        
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(excelData);
+                .body(body);
+    }
+    
+    // Queued reports: submit, poll for status/progress, then download the result once it is ready
+    @PostMapping("/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
+    public ResponseEntity<Map<String, Object>> submitReportJob(
+            @RequestParam ReportJob.ReportType type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long userId,
+            Authentication authentication) {
+        
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+        Long targetUserId;
+        if (type == ReportJob.ReportType.PRODUCTIVITY_EXCEL) {
+            if (currentUser.getRole() == User.UserRole.USER) {
+                throw new AccessDeniedException("Productivity reports require the ADMIN or MANAGER role");
+            }
+            targetUserId = null;
+        } else {
+            targetUserId = userId != null ? userId : currentUser.getId();
+        }
+        
+        ReportJob job = reportJobService.submit(type, currentUser.getId(), targetUserId, startDate, endDate);
+        return ResponseEntity.accepted().body(reportJobService.toStatus(job));
+    }
+    
+    @GetMapping("/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
+    public ResponseEntity<List<Map<String, Object>>> getReportJobs(Authentication authentication) {
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+        List<Map<String, Object>> jobs = reportJobService.getJobsForUser(currentUser.getId()).stream()
+                .map(reportJobService::toStatus)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(jobs);
+    }
+    
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
+    public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable Long id, Authentication authentication) {
+        ReportJob job = getAccessibleJob(id, authentication);
+        return ResponseEntity.ok(reportJobService.toStatus(job));
+    }
+    
+    @GetMapping("/jobs/{id}/download")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
+    public ResponseEntity<Resource> downloadReportJob(@PathVariable Long id, Authentication authentication) {
+        ReportJob job = getAccessibleJob(id, authentication);
+        Resource file = new FileSystemResource(reportJobService.getResultFile(job));
+        
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType(reportJobService.getContentType(job.getReportType())))
+                .body(file);
     }
     
     @GetMapping("/overtime")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<TimeEntry>> getOvertimeReport(
+    public ResponseEntity<List<TimeEntryDto>> getOvertimeReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         
@@ -214,43 +230,80 @@ public class ReportController {
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
         
         // Get time entries with overtime
-        List<TimeEntry> overtimeEntries = timeEntryRepository.findOvertimeEntriesInDateRange(
-                startDateTime, endDateTime);
+        List<TimeEntryDto> overtimeEntries = timeEntryArchiveService.findOvertimeEntriesInDateRange(
+                startDateTime, endDateTime).stream()
+                .map(this::convertToDto)
+                .toList();
         
         return ResponseEntity.ok(overtimeEntries);
     }
     
     // Helper methods for report generation
-    private byte[] generateExcelReport(List<TimeEntry> timeEntries, LocalDate startDate, LocalDate endDate) {
-        // Implementation for Excel generation
-        // This would use Apache POI to create Excel file
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // Excel generation logic here
-        return outputStream.toByteArray();
-    }
-    
-    private byte[] generatePdfReport(List<TimeEntry> timeEntries, LocalDate startDate, LocalDate endDate) {
-        // Implementation for PDF generation
-        // This would use iText to create PDF file
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // PDF generation logic here
-        return outputStream.toByteArray();
+    private Long resolveTargetUserId(Long userId, Authentication authentication) {
+        if (userId != null) {
+            return userId;
+        }
+        String username = authentication.getName();
+        User currentUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUser.getId();
     }
     
-    private Map<String, Object> generateUserProductivityData(List<User> users, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        // Implementation for user productivity data
-        return Map.of("placeholder", "productivity data");
+    private TimeEntryDto convertToDto(TimeEntry entry) {
+        TimeEntryDto dto = new TimeEntryDto();
+        dto.setId(entry.getId());
+        dto.setUserId(entry.getUser().getId());
+        dto.setUserName(entry.getUser().getFullName());
+        if (entry.getProject() != null) {
+            dto.setProjectId(entry.getProject().getId());
+            dto.setProjectName(entry.getProject().getName());
+        }
+        if (entry.getTask() != null) {
+            dto.setTaskId(entry.getTask().getId());
+            dto.setTaskTitle(entry.getTask().getTitle());
+        }
+        dto.setPunchInTime(entry.getPunchInTime());
+        dto.setPunchOutTime(entry.getPunchOutTime());
+        dto.setLunchInTime(entry.getLunchInTime());
+        dto.setLunchOutTime(entry.getLunchOutTime());
+        dto.setBreakStartTime(entry.getBreakStartTime());
+        dto.setBreakEndTime(entry.getBreakEndTime());
+        dto.setTotalWorkHours(entry.getTotalWorkHours());
+        dto.setTotalBreakHours(entry.getTotalBreakHours());
+        dto.setTotalLunchHours(entry.getTotalLunchHours());
+        dto.setOvertimeHours(entry.getOvertimeHours());
+        dto.setActive(entry.isActive());
+        dto.setNotes(entry.getNotes());
+        dto.setCreatedAt(entry.getCreatedAt());
+        dto.setUpdatedAt(entry.getUpdatedAt());
+        dto.setManualEntry(entry.isManualEntry());
+        dto.setApprovedBy(entry.getApprovedBy());
+        dto.setApprovedAt(entry.getApprovedAt());
+        dto.setApproved(entry.isApproved());
+        dto.setStatus(entry.isActive() ? "ACTIVE" : entry.isApproved() ? "APPROVED" : "COMPLETED");
+        return dto;
     }
     
-    private Map<String, Object> generateProductivitySummary(List<User> users, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        // Implementation for productivity summary
-        return Map.of("placeholder", "summary data");
+    // Other users' reports stay visible to admins
+    private ReportJob getAccessibleJob(Long id, Authentication authentication) {
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+        ReportJob job = reportJobService.getJob(id);
+        if (!job.getRequestedBy().equals(currentUser.getId()) && currentUser.getRole() != User.UserRole.ADMIN) {
+            throw new AccessDeniedException("Not allowed to access this report");
+        }
+        return job;
     }
     
-    private byte[] generateProductivityExcelReport(List<User> users, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        // Implementation for productivity Excel report
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // Excel generation logic here
-        return outputStream.toByteArray();
+    // Rows go straight from the result set to the response instead of being built up in memory first
+    private ResponseEntity<StreamingResponseBody> streamTimesheet(Long targetUserId, LocalDate startDate, LocalDate endDate,
+                                                                  TimesheetExportService.ExportFormat format,
+                                                                  String filename, MediaType mediaType) {
+        StreamingResponseBody body = outputStream ->
+                timesheetExportService.exportTimesheet(targetUserId, startDate, endDate, format, outputStream);
+        
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(mediaType)
+                .body(body);
     }
 } 
\ No newline at end of file
@@ -1,11 +1,17 @@
 package com.teamlogger.backend.controller;
 
+import com.teamlogger.backend.dto.CursorPage;
+import com.teamlogger.backend.dto.TaskDto;
 import com.teamlogger.backend.entity.Task;
 import com.teamlogger.backend.entity.User;
 import com.teamlogger.backend.repository.TaskRepository;
 import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.backend.service.DashboardStreamService;
 import com.teamlogger.backend.service.EmailService;
+import com.teamlogger.backend.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -30,11 +36,17 @@ public class TaskController {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private SearchService searchService;
+    
+    @Autowired
+    private DashboardStreamService dashboardStreamService;
+    
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Task>> getAllTasks() {
-        List<Task> tasks = taskRepository.findAll();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> getAllTasks(@RequestParam(required = false) Long cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(taskRepository.findByIdGreaterThanOrderByIdAsc(afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/{id}")
@@ -57,12 +69,12 @@ public class TaskController {
         task.setUpdatedAt(LocalDateTime.now());
         
         Task savedTask = taskRepository.save(task);
+        dashboardStreamService.tasksChanged();
         
         // Send email notification to assigned user
         if (task.getAssignedTo() != null) {
             emailService.sendTaskAssignmentEmail(
-                    task.getAssignedTo().getEmail(),
-                    task.getAssignedTo().getFullName(),
+                    task.getAssignedTo(),
                     task.getTitle(),
                     task.getProject() != null ? task.getProject().getName() : "No Project"
             );
@@ -91,6 +103,7 @@ public class TaskController {
             task.setUpdatedAt(LocalDateTime.now());
             
             Task updatedTask = taskRepository.save(task);
+            dashboardStreamService.tasksChanged();
             return ResponseEntity.ok(updatedTask);
         }
         return ResponseEntity.notFound().build();
@@ -101,6 +114,7 @@ public class TaskController {
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
         if (taskRepository.existsById(id)) {
             taskRepository.deleteById(id);
+            dashboardStreamService.tasksChanged();
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -108,44 +122,62 @@ public class TaskController {
     
     @GetMapping("/project/{projectId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Task>> getTasksByProject(@PathVariable Long projectId) {
-        List<Task> tasks = taskRepository.findByProjectId(projectId);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> getTasksByProject(@PathVariable Long projectId,
+                                                                 @RequestParam(required = false) Long cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(taskRepository.findByProjectIdAndIdGreaterThanOrderByIdAsc(projectId,
+                afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/assigned/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Task>> getTasksByAssignee(@PathVariable Long userId) {
-        List<Task> tasks = taskRepository.findByAssignedToId(userId);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> getTasksByAssignee(@PathVariable Long userId,
+                                                                  @RequestParam(required = false) Long cursor,
+                                                                  @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(taskRepository.findByAssignedToIdAndIdGreaterThanOrderByIdAsc(userId,
+                afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/created/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Task>> getTasksByCreator(@PathVariable Long userId) {
-        List<Task> tasks = taskRepository.findByCreatedById(userId);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> getTasksByCreator(@PathVariable Long userId,
+                                                                 @RequestParam(required = false) Long cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(taskRepository.findByCreatedByIdAndIdGreaterThanOrderByIdAsc(userId,
+                afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Task>> getTasksByStatus(@PathVariable Task.TaskStatus status) {
-        List<Task> tasks = taskRepository.findByStatus(status);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> getTasksByStatus(@PathVariable Task.TaskStatus status,
+                                                                @RequestParam(required = false) Long cursor,
+                                                                @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(taskRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status,
+                afterId(cursor), pageOf(size))));
     }
     
     @GetMapping("/overdue")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<Task>> getOverdueTasks() {
-        List<Task> tasks = taskRepository.findOverdueTasks(LocalDateTime.now());
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> getOverdueTasks(@RequestParam(required = false) Long cursor,
+                                                               @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(toPage(taskRepository.findOverdueTasksAfter(LocalDateTime.now(), afterId(cursor),
+                pageOf(size))));
     }
     
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
-    public ResponseEntity<List<Task>> searchTasks(@RequestParam String searchTerm) {
-        List<Task> tasks = taskRepository.searchTasks(searchTerm);
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<CursorPage<TaskDto>> searchTasks(@RequestParam String searchTerm,
+                                                           @RequestParam(required = false) Task.TaskStatus status,
+                                                           @RequestParam(required = false) Task.TaskPriority priority,
+                                                           @RequestParam(required = false) Long projectId,
+                                                           @RequestParam(required = false) Integer cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        Slice<Task> tasks = searchService.searchTasks(searchTerm, status, priority, projectId,
+                cursor != null ? Math.max(0, cursor) : 0, CursorPage.clampSize(size));
+        List<TaskDto> items = tasks.getContent().stream()
+                .map(this::convertToDto)
+                .toList();
+        return ResponseEntity.ok(CursorPage.ofPage(items, tasks));
     }
     
     @PutMapping("/{id}/start")
@@ -158,6 +190,7 @@ public class TaskController {
             task.setStartedAt(LocalDateTime.now());
             task.setUpdatedAt(LocalDateTime.now());
             Task startedTask = taskRepository.save(task);
+            dashboardStreamService.tasksChanged();
             return ResponseEntity.ok(startedTask);
         }
         return ResponseEntity.notFound().build();
@@ -174,6 +207,7 @@ public class TaskController {
             task.setCompletedAt(LocalDateTime.now());
             task.setUpdatedAt(LocalDateTime.now());
             Task completedTask = taskRepository.save(task);
+            dashboardStreamService.tasksChanged();
             return ResponseEntity.ok(completedTask);
         }
         return ResponseEntity.notFound().build();
@@ -200,6 +234,7 @@ public class TaskController {
             }
             
             Task updatedTask = taskRepository.save(task);
+            dashboardStreamService.tasksChanged();
             return ResponseEntity.ok(updatedTask);
         }
         return ResponseEntity.notFound().build();
@@ -212,7 +247,54 @@ public class TaskController {
                 "totalTasks", taskRepository.count(),
                 "completedTasks", taskRepository.countByStatus(Task.TaskStatus.COMPLETED),
                 "inProgressTasks", taskRepository.countByStatus(Task.TaskStatus.IN_PROGRESS),
-                "overdueTasks", taskRepository.findOverdueTasks(LocalDateTime.now()).size()
+                "overdueTasks", taskRepository.countOverdueTasks(LocalDateTime.now())
         ));
     }
+    
+    // Keyset lists continue after the id of the last task on the previous page
+    private CursorPage<TaskDto> toPage(Slice<Task> tasks) {
+        List<TaskDto> items = tasks.getContent().stream()
+                .map(this::convertToDto)
+                .toList();
+        return CursorPage.of(items, tasks.hasNext(), task -> task.getId().toString());
+    }
+    
+    private static long afterId(Long cursor) {
+        return cursor != null ? cursor : 0L;
+    }
+    
+    private static PageRequest pageOf(Integer size) {
+        return PageRequest.of(0, CursorPage.clampSize(size));
+    }
+    
+    private TaskDto convertToDto(Task task) {
+        TaskDto dto = new TaskDto();
+        dto.setId(task.getId());
+        dto.setTitle(task.getTitle());
+        dto.setDescription(task.getDescription());
+        dto.setPriority(task.getPriority());
+        dto.setStatus(task.getStatus());
+        if (task.getProject() != null) {
+            dto.setProjectId(task.getProject().getId());
+            dto.setProjectName(task.getProject().getName());
+        }
+        if (task.getAssignedTo() != null) {
+            dto.setAssignedToId(task.getAssignedTo().getId());
+            dto.setAssignedToName(task.getAssignedTo().getFullName());
+        }
+        if (task.getCreatedBy() != null) {
+            dto.setCreatedById(task.getCreatedBy().getId());
+            dto.setCreatedByName(task.getCreatedBy().getFullName());
+        }
+        dto.setDueDate(task.getDueDate());
+        dto.setEstimatedHours(task.getEstimatedHours());
+        dto.setActualHours(task.getActualHours());
+        dto.setProgressPercentage(task.getProgressPercentage());
+        dto.setCreatedAt(task.getCreatedAt());
+        dto.setUpdatedAt(task.getUpdatedAt());
+        dto.setStartedAt(task.getStartedAt());
+        dto.setCompletedAt(task.getCompletedAt());
+        dto.setTags(task.getTags());
+        return dto;
+    }
 } 
\ No newline at end of file
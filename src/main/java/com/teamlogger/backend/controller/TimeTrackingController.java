@@ -1,17 +1,21 @@
 package com.teamlogger.backend.controller;
 
+import com.teamlogger.backend.dto.CursorPage;
 import com.teamlogger.backend.dto.TimeEntryDto;
 import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.entity.User;
 import com.teamlogger.backend.security.JwtTokenProvider;
 import com.teamlogger.backend.service.TimeTrackingService;
 import com.teamlogger.backend.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -37,7 +41,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.punchIn(userId, projectId, taskId, notes);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -49,7 +53,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.punchOut(userId, notes);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -60,7 +64,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.startLunch(userId);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -71,7 +75,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.endLunch(userId);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -82,7 +86,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.startBreak(userId);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -93,7 +97,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.endBreak(userId);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -117,7 +121,7 @@ public class TimeTrackingController {
         try {
             Long userId = getUserIdFromToken(token);
             TimeEntry timeEntry = timeTrackingService.getCurrentTimeEntry(userId);
-            return ResponseEntity.ok(timeEntry);
+            return ResponseEntity.ok(convertToDto(timeEntry));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -126,11 +130,25 @@ public class TimeTrackingController {
     @GetMapping("/entries")
     public ResponseEntity<?> getUserTimeEntries(@RequestHeader("Authorization") String token,
                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size) {
         try {
             Long userId = getUserIdFromToken(token);
-            List<TimeEntry> timeEntries = timeTrackingService.getUserTimeEntries(userId, startDate, endDate);
-            return ResponseEntity.ok(timeEntries);
+            
+            // Cursor is "<punchInTime>_<id>" of the last entry on the previous page
+            LocalDateTime afterTime = null;
+            Long afterId = null;
+            if (cursor != null) {
+                int separator = cursor.lastIndexOf('_');
+                afterTime = LocalDateTime.parse(cursor.substring(0, separator));
+                afterId = Long.valueOf(cursor.substring(separator + 1));
+            }
+            
+            Slice<TimeEntry> timeEntries = timeTrackingService.getUserTimeEntries(userId, startDate, endDate,
+                    afterTime, afterId, CursorPage.clampSize(size));
+            return ResponseEntity.ok(CursorPage.of(timeEntries.getContent(), timeEntries.hasNext(),
+                    entry -> entry.getPunchInTime() + "_" + entry.getId()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -166,7 +184,9 @@ public class TimeTrackingController {
     public ResponseEntity<?> getPendingApprovalTimeEntries(@RequestHeader("Authorization") String token) {
         try {
             Long userId = getUserIdFromToken(token);
-            List<TimeEntry> timeEntries = timeTrackingService.getPendingApprovalTimeEntries(userId);
+            List<TimeEntryDto> timeEntries = timeTrackingService.getPendingApprovalTimeEntries(userId).stream()
+                    .map(this::convertToDto)
+                    .toList();
             return ResponseEntity.ok(timeEntries);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -196,8 +216,51 @@ public class TimeTrackingController {
         }
     }
     
+    // Punch responses come from the active time entry index, whose user, project and task carry only id and name
+    private TimeEntryDto convertToDto(TimeEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+        TimeEntryDto dto = new TimeEntryDto();
+        dto.setId(entry.getId());
+        dto.setUserId(entry.getUser().getId());
+        dto.setUserName(entry.getUser().getFullName());
+        if (entry.getProject() != null) {
+            dto.setProjectId(entry.getProject().getId());
+            dto.setProjectName(entry.getProject().getName());
+        }
+        if (entry.getTask() != null) {
+            dto.setTaskId(entry.getTask().getId());
+            dto.setTaskTitle(entry.getTask().getTitle());
+        }
+        dto.setPunchInTime(entry.getPunchInTime());
+        dto.setPunchOutTime(entry.getPunchOutTime());
+        dto.setLunchInTime(entry.getLunchInTime());
+        dto.setLunchOutTime(entry.getLunchOutTime());
+        dto.setBreakStartTime(entry.getBreakStartTime());
+        dto.setBreakEndTime(entry.getBreakEndTime());
+        dto.setTotalWorkHours(entry.getTotalWorkHours());
+        dto.setTotalBreakHours(entry.getTotalBreakHours());
+        dto.setTotalLunchHours(entry.getTotalLunchHours());
+        dto.setOvertimeHours(entry.getOvertimeHours());
+        dto.setActive(entry.isActive());
+        dto.setNotes(entry.getNotes());
+        dto.setCreatedAt(entry.getCreatedAt());
+        dto.setUpdatedAt(entry.getUpdatedAt());
+        dto.setManualEntry(entry.isManualEntry());
+        dto.setApprovedBy(entry.getApprovedBy());
+        dto.setApprovedAt(entry.getApprovedAt());
+        dto.setApproved(entry.isApproved());
+        dto.setStatus(entry.isActive() ? "ACTIVE" : entry.isApproved() ? "APPROVED" : "COMPLETED");
+        return dto;
+    }
+    
     private Long getUserIdFromToken(String token) {
-        String username = tokenProvider.getUsernameFromToken(token.substring(7));
-        return userService.loadUserByUsername(username).getId();
+        String jwt = token.substring(7); // Remove "Bearer "
+        Long userId = tokenProvider.getUserIdFromToken(jwt);
+        if (userId != null) {
+            return userId;
+        }
+        return ((User) userService.loadUserByUsername(tokenProvider.getUsernameFromToken(jwt))).getId();
     }
 } 
\ No newline at end of file
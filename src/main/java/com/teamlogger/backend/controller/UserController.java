@@ -1,15 +1,22 @@
 package com.teamlogger.backend.controller;
 
+import com.teamlogger.backend.dto.CursorPage;
 import com.teamlogger.backend.entity.User;
 import com.teamlogger.backend.repository.UserRepository;
 import com.teamlogger.backend.service.EmailService;
+import com.teamlogger.backend.service.PresenceService;
+import com.teamlogger.backend.service.SearchService;
+import com.teamlogger.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,11 +35,21 @@ public class UserController {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private SearchService searchService;
+    
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<CursorPage<User>> getAllUsers(@RequestParam(required = false) Long cursor,
+                                                        @RequestParam(required = false) Integer size) {
+        Slice<User> users = userService.getUsers(cursor, CursorPage.clampSize(size));
+        return ResponseEntity.ok(CursorPage.of(users.getContent(), users.hasNext(), user -> user.getId().toString()));
     }
     
     @GetMapping("/{id}")
@@ -60,13 +77,13 @@ public class UserController {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
-        user.setIsActive(true);
-        user.setIsOnline(false);
+        user.setActive(true);
+        user.setOnline(false);
         
         User savedUser = userRepository.save(user);
         
         // Send welcome email
-        emailService.sendWelcomeEmail(user.getEmail(), user.getFullName(), user.getUsername());
+        emailService.sendWelcomeEmail(savedUser);
         
         return ResponseEntity.ok(savedUser);
     }
@@ -77,19 +94,21 @@ public class UserController {
         Optional<User> userOpt = userRepository.findById(id);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
+            boolean revoke = userDetails.getRole() != user.getRole() || !userDetails.isActive();
             user.setFirstName(userDetails.getFirstName());
             user.setLastName(userDetails.getLastName());
             user.setEmail(userDetails.getEmail());
             user.setRole(userDetails.getRole());
-            user.setIsActive(userDetails.isIsActive());
+            user.setActive(userDetails.isActive());
             user.setUpdatedAt(LocalDateTime.now());
             
             // Only update password if provided
             if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
                 user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+                revoke = true;
             }
             
-            User updatedUser = userRepository.save(user);
+            User updatedUser = revoke ? userService.revokeTokens(user) : userRepository.save(user);
             return ResponseEntity.ok(updatedUser);
         }
         return ResponseEntity.notFound().build();
@@ -105,25 +124,54 @@ public class UserController {
         return ResponseEntity.notFound().build();
     }
     
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<CursorPage<User>> searchUsers(@RequestParam String searchTerm,
+                                                        @RequestParam(required = false) User.UserRole role,
+                                                        @RequestParam(required = false) Boolean active,
+                                                        @RequestParam(required = false) Integer cursor,
+                                                        @RequestParam(required = false) Integer size) {
+        Slice<User> users = searchService.searchUsers(searchTerm, role, active,
+                cursor != null ? Math.max(0, cursor) : 0, CursorPage.clampSize(size));
+        return ResponseEntity.ok(CursorPage.ofPage(users.getContent(), users));
+    }
+    
     @GetMapping("/active")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<User>> getActiveUsers() {
-        List<User> users = userRepository.findByIsActive(true);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<CursorPage<User>> getActiveUsers(@RequestParam(required = false) Long cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        Slice<User> users = userRepository.findByIsActiveAndIdGreaterThanOrderByIdAsc(true, cursor != null ? cursor : 0L,
+                PageRequest.of(0, CursorPage.clampSize(size)));
+        return ResponseEntity.ok(CursorPage.of(users.getContent(), users.hasNext(), user -> user.getId().toString()));
     }
     
     @GetMapping("/online")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<User>> getOnlineUsers() {
-        List<User> users = userRepository.findByIsOnline(true);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<CursorPage<User>> getOnlineUsers(@RequestParam(required = false) Long cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        // Presence lives in memory, so the page is cut on its ids before any row is loaded
+        int pageSize = CursorPage.clampSize(size);
+        long afterId = cursor != null ? cursor : 0L;
+        List<Long> ids = presenceService.getOnlineUserIds().stream()
+                .filter(id -> id > afterId)
+                .sorted()
+                .limit(pageSize + 1L)
+                .toList();
+        boolean hasNext = ids.size() > pageSize;
+        List<User> users = ids.isEmpty() ? List.of() : userRepository.findAllById(hasNext ? ids.subList(0, pageSize) : ids).stream()
+                .sorted(Comparator.comparing(User::getId))
+                .toList();
+        return ResponseEntity.ok(CursorPage.of(users, hasNext, user -> user.getId().toString()));
     }
     
     @GetMapping("/role/{role}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getUsersByRole(@PathVariable User.UserRole role) {
-        List<User> users = userRepository.findByRole(role);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<CursorPage<User>> getUsersByRole(@PathVariable User.UserRole role,
+                                                           @RequestParam(required = false) Long cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        Slice<User> users = userRepository.findByRoleAndIdGreaterThanOrderByIdAsc(role, cursor != null ? cursor : 0L,
+                PageRequest.of(0, CursorPage.clampSize(size)));
+        return ResponseEntity.ok(CursorPage.of(users.getContent(), users.hasNext(), user -> user.getId().toString()));
     }
     
     @PutMapping("/{id}/activate")
@@ -132,7 +180,7 @@ public class UserController {
         Optional<User> userOpt = userRepository.findById(id);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            user.setIsActive(true);
+            user.setActive(true);
             user.setUpdatedAt(LocalDateTime.now());
             User activatedUser = userRepository.save(user);
             return ResponseEntity.ok(activatedUser);
@@ -146,10 +194,11 @@ public class UserController {
         Optional<User> userOpt = userRepository.findById(id);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            user.setIsActive(false);
-            user.setIsOnline(false);
+            user.setActive(false);
+            user.setOnline(false);
             user.setUpdatedAt(LocalDateTime.now());
-            User deactivatedUser = userRepository.save(user);
+            User deactivatedUser = userService.revokeTokens(user);
+            presenceService.markOffline(id);
             return ResponseEntity.ok(deactivatedUser);
         }
         return ResponseEntity.notFound().build();
@@ -164,7 +213,7 @@ public class UserController {
             String newPassword = generateRandomPassword();
             user.setPassword(passwordEncoder.encode(newPassword));
             user.setUpdatedAt(LocalDateTime.now());
-            User updatedUser = userRepository.save(user);
+            User updatedUser = userService.revokeTokens(user);
             
             // Send password reset email
             emailService.sendPasswordResetEmail(user.getEmail(), user.getFullName(), newPassword);
@@ -180,7 +229,7 @@ public class UserController {
         return ResponseEntity.ok(Map.of(
                 "totalUsers", userRepository.count(),
                 "activeUsers", userRepository.countByIsActive(true),
-                "onlineUsers", userRepository.countOnlineUsers(),
+                "onlineUsers", presenceService.getOnlineCount(),
                 "adminUsers", userRepository.countByRole(User.UserRole.ADMIN),
                 "managerUsers", userRepository.countByRole(User.UserRole.MANAGER),
                 "regularUsers", userRepository.countByRole(User.UserRole.USER)
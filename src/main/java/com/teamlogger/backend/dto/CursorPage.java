@@ -0,0 +1,37 @@
+package com.teamlogger.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One keyset page; pass nextCursor back as "cursor" to fetch the following page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 200;
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+    
+    public static int clampSize(Integer size) {
+        return size == null ? DEFAULT_SIZE : Math.max(1, Math.min(size, MAX_SIZE));
+    }
+    
+    public static <T> CursorPage<T> of(List<T> items, boolean hasNext, Function<T, String> cursorOf) {
+        String nextCursor = hasNext && !items.isEmpty() ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasNext);
+    }
+    
+    // For relevance-ranked results, which have no stable key to continue from; the cursor is the next page number
+    public static <T> CursorPage<T> ofPage(List<T> items, Slice<?> slice) {
+        return new CursorPage<>(items, slice.hasNext() ? String.valueOf(slice.getNumber() + 1) : null, slice.hasNext());
+    }
+}
@@ -0,0 +1,44 @@
+package com.teamlogger.backend.dto;
+
+import com.teamlogger.backend.entity.Project;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectDto {
+    
+    private Long id;
+    private String name;
+    private String description;
+    private Project.ProjectPriority priority;
+    private Project.ProjectStatus status;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private LocalDateTime deadline;
+    
+    private Long managerId;
+    private String managerName;
+    private List<MemberDto> members;
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Integer progressPercentage;
+    private Double budget;
+    private String clientName;
+    private boolean isArchived;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MemberDto {
+        private Long id;
+        private String username;
+        private String fullName;
+    }
+}
@@ -0,0 +1,37 @@
+package com.teamlogger.backend.dto;
+
+import com.teamlogger.backend.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDto {
+    
+    private Long id;
+    private String title;
+    private String description;
+    private Task.TaskPriority priority;
+    private Task.TaskStatus status;
+    
+    private Long projectId;
+    private String projectName;
+    private Long assignedToId;
+    private String assignedToName;
+    private Long createdById;
+    private String createdByName;
+    
+    private LocalDateTime dueDate;
+    private Double estimatedHours;
+    private Double actualHours;
+    private Integer progressPercentage;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private String tags;
+}
@@ -0,0 +1,118 @@
+package com.teamlogger.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Closed, approved time entries moved out of time_entries by TimeEntryArchiveService; read-only
+@Entity
+@Table(name = "time_entries_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTimeEntry {
+    
+    // Keeps the id the entry had in time_entries
+    @Id
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id")
+    private Project project;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_id")
+    private Task task;
+    
+    @Column(name = "punch_in_time", nullable = false)
+    private LocalDateTime punchInTime;
+    
+    @Column(name = "punch_out_time")
+    private LocalDateTime punchOutTime;
+    
+    @Column(name = "lunch_in_time")
+    private LocalDateTime lunchInTime;
+    
+    @Column(name = "lunch_out_time")
+    private LocalDateTime lunchOutTime;
+    
+    @Column(name = "break_start_time")
+    private LocalDateTime breakStartTime;
+    
+    @Column(name = "break_end_time")
+    private LocalDateTime breakEndTime;
+    
+    @Column(name = "total_work_hours")
+    private Double totalWorkHours = 0.0;
+    
+    @Column(name = "total_break_hours")
+    private Double totalBreakHours = 0.0;
+    
+    @Column(name = "total_lunch_hours")
+    private Double totalLunchHours = 0.0;
+    
+    @Column(name = "overtime_hours")
+    private Double overtimeHours = 0.0;
+    
+    @Column(name = "is_active")
+    private boolean isActive = true;
+    
+    @Column(name = "notes")
+    private String notes;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "is_manual_entry")
+    private boolean isManualEntry = false;
+    
+    @Column(name = "approved_by")
+    private Long approvedBy;
+    
+    @Column(name = "approved_at")
+    private LocalDateTime approvedAt;
+    
+    @Column(name = "is_approved")
+    private boolean isApproved = false;
+    
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+    
+    // Detached copy in the live shape, so callers can treat archived and live entries alike
+    public TimeEntry toTimeEntry() {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(id);
+        entry.setUser(user);
+        entry.setProject(project);
+        entry.setTask(task);
+        entry.setPunchInTime(punchInTime);
+        entry.setPunchOutTime(punchOutTime);
+        entry.setLunchInTime(lunchInTime);
+        entry.setLunchOutTime(lunchOutTime);
+        entry.setBreakStartTime(breakStartTime);
+        entry.setBreakEndTime(breakEndTime);
+        entry.setTotalWorkHours(totalWorkHours);
+        entry.setTotalBreakHours(totalBreakHours);
+        entry.setTotalLunchHours(totalLunchHours);
+        entry.setOvertimeHours(overtimeHours);
+        entry.setActive(isActive);
+        entry.setNotes(notes);
+        entry.setCreatedAt(createdAt);
+        entry.setUpdatedAt(updatedAt);
+        entry.setManualEntry(isManualEntry);
+        entry.setApprovedBy(approvedBy);
+        entry.setApprovedAt(approvedAt);
+        entry.setApproved(isApproved);
+        return entry;
+    }
+}
@@ -0,0 +1,54 @@
+package com.teamlogger.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "daily_time_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_user_project_date",
+               columnNames = {"user_id", "project_id", "rollup_date"}),
+       indexes = @Index(name = "idx_rollup_date", columnList = "rollup_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyTimeRollup {
+    
+    // Entries without a project are stored under this id so the unique key still applies
+    public static final long NO_PROJECT = 0L;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "project_id", nullable = false)
+    private Long projectId = NO_PROJECT;
+    
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+    
+    @Column(name = "total_work_hours", nullable = false)
+    private Double totalWorkHours = 0.0;
+    
+    @Column(name = "overtime_hours", nullable = false)
+    private Double overtimeHours = 0.0;
+    
+    @Column(name = "entry_count", nullable = false)
+    private Long entryCount = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
\ No newline at end of file
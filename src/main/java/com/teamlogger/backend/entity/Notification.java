@@ -8,7 +8,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+       indexes = @Index(name = "idx_notification_email_outbox",
+               columnList = "email_requested, is_email_sent, next_email_attempt_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,6 +51,20 @@ public class Notification {
     @Column(name = "email_sent_at")
     private LocalDateTime emailSentAt;
     
+    // Rows with email_requested set and is_email_sent clear form the outbound email queue
+    @Column(name = "email_requested")
+    private boolean emailRequested = false;
+    
+    @Column(name = "email_attempts")
+    private Integer emailAttempts = 0;
+    
+    // Earliest time the dispatcher may pick the row up again (retry backoff or a claim by another node)
+    @Column(name = "next_email_attempt_at")
+    private LocalDateTime nextEmailAttemptAt;
+    
+    @Column(name = "email_error", columnDefinition = "TEXT")
+    private String emailError;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
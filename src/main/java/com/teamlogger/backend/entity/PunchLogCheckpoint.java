@@ -0,0 +1,27 @@
+package com.teamlogger.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// How far each node's punch log has been written to time_entries; updated in the same transaction as the rows
+@Entity
+@Table(name = "punch_log_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PunchLogCheckpoint {
+    
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+    
+    @Column(name = "position", nullable = false)
+    private Long position;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
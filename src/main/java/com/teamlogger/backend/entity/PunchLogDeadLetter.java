@@ -0,0 +1,46 @@
+package com.teamlogger.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A punch log record that time_entries rejected; the log moves past it, the raw record is kept here
+@Entity
+@Table(name = "punch_log_dead_letters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PunchLogDeadLetter {
+    
+    public static final int ERROR_LENGTH = 1000;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "node_id", length = 64, nullable = false)
+    private String nodeId;
+    
+    @Column(name = "position", nullable = false)
+    private Long position;
+    
+    // Null when the record could not be decoded
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "action", length = 32, nullable = false)
+    private String action;
+    
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+    
+    @Column(name = "error", length = ERROR_LENGTH)
+    private String error;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
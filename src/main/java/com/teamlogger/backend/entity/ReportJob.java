@@ -0,0 +1,92 @@
+package com.teamlogger.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "report_jobs",
+       uniqueConstraints = @UniqueConstraint(name = "uk_report_job_dedup_key", columnNames = "dedup_key"),
+       indexes = @Index(name = "idx_report_job_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_type", nullable = false)
+    private ReportType reportType;
+    
+    @Column(name = "requested_by", nullable = false)
+    private Long requestedBy;
+    
+    // Null for reports that cover every user
+    @Column(name = "target_user_id")
+    private Long targetUserId;
+    
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+    
+    @Column(name = "request_key", nullable = false, length = 64)
+    private String requestKey;
+    
+    // Same as requestKey while the job is queued, running or has a live result, null otherwise.
+    // The unique constraint is what keeps identical concurrent requests from starting twice across the cluster.
+    @Column(name = "dedup_key", length = 64)
+    private String dedupKey;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReportStatus status = ReportStatus.QUEUED;
+    
+    @Column(nullable = false)
+    private Integer progress = 0;
+    
+    @Column(name = "result_path")
+    private String resultPath;
+    
+    @Column(name = "file_name")
+    private String fileName;
+    
+    @Column(name = "file_size")
+    private Long fileSize;
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    public enum ReportType {
+        TIMESHEET_EXCEL, TIMESHEET_PDF, TIMESHEET_CSV, PRODUCTIVITY_EXCEL
+    }
+    
+    public enum ReportStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, EXPIRED
+    }
+}
\ No newline at end of file
@@ -22,8 +22,9 @@ public class Screenshot {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    // No foreign key: the entry may since have moved to time_entries_archive
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "time_entry_id")
+    @JoinColumn(name = "time_entry_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private TimeEntry timeEntry;
     
     @Column(name = "cloudinary_url", nullable = false)
@@ -1,5 +1,6 @@
 package com.teamlogger.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,6 +13,8 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// Lazy references are serialized as Hibernate proxies; their interceptor fields are not part of the entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Task {
     
     @Id
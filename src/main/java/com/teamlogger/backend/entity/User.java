@@ -1,5 +1,6 @@
 package com.teamlogger.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,6 +18,8 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// Lazy references are serialized as Hibernate proxies; their interceptor fields are not part of the entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User implements UserDetails {
     
     @Id
@@ -74,6 +77,10 @@ public class User implements UserDetails {
     @Column(name = "reset_token_expiry")
     private LocalDateTime resetTokenExpiry;
     
+    // Bumped to invalidate every JWT issued to this user
+    @Column(name = "token_version")
+    private Integer tokenVersion = 0;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
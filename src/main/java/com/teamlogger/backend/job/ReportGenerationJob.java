@@ -0,0 +1,18 @@
+package com.teamlogger.backend.job;
+
+import com.teamlogger.backend.service.ReportJobService;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+// One-shot Quartz job; the report itself is tracked in report_jobs, not in the Quartz tables
+public class ReportGenerationJob extends QuartzJobBean {
+    
+    @Autowired
+    private ReportJobService reportJobService;
+    
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        reportJobService.run(context.getMergedJobDataMap().getLong(ReportJobService.REPORT_JOB_ID));
+    }
+}
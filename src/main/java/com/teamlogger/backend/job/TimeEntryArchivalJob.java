@@ -0,0 +1,20 @@
+package com.teamlogger.backend.job;
+
+import com.teamlogger.backend.service.TimeEntryArchiveService;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+// Recurring Quartz job; the clustered job store runs each firing on one node only
+@DisallowConcurrentExecution
+public class TimeEntryArchivalJob extends QuartzJobBean {
+    
+    @Autowired
+    private TimeEntryArchiveService timeEntryArchiveService;
+    
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        timeEntryArchiveService.archiveClosedEntries();
+    }
+}
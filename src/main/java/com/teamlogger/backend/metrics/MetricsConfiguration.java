@@ -0,0 +1,53 @@
+package com.teamlogger.backend.metrics;
+
+import com.teamlogger.backend.service.DashboardStreamService;
+import com.teamlogger.backend.service.PunchLogService;
+import com.teamlogger.backend.service.ScreenshotService;
+import com.teamlogger.backend.service.ScreenshotUploadQueue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+    
+    @Bean
+    public StatementCountInspector statementCountInspector() {
+        return new StatementCountInspector();
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(StatementCountInspector statementCountInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCountInspector);
+    }
+    
+    @Bean
+    public MeterBinder screenshotMetrics(ScreenshotService screenshotService, ScreenshotUploadQueue uploadQueue) {
+        return registry -> {
+            Gauge.builder("screenshot.sessions.active", screenshotService, ScreenshotService::getActiveSessionCount)
+                    .description("Users with a running screenshot capture session")
+                    .register(registry);
+            Gauge.builder("screenshot.upload.queue.depth", uploadQueue, ScreenshotUploadQueue::getQueueDepth)
+                    .description("Captures waiting to be uploaded")
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder punchLogMetrics(PunchLogService punchLogService) {
+        return registry -> Gauge.builder("punch.log.pending", punchLogService, PunchLogService::getPendingBytes)
+                .description("Bytes of punch events not yet written to time_entries")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+    
+    @Bean
+    public MeterBinder dashboardStreamMetrics(DashboardStreamService dashboardStreamService) {
+        return registry -> Gauge.builder("dashboard.stream.connections", dashboardStreamService, DashboardStreamService::getSubscriberCount)
+                .description("Open dashboard push streams")
+                .register(registry);
+    }
+}
@@ -0,0 +1,8 @@
+package com.teamlogger.backend.metrics;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    
+    public QueryBudgetExceededException(String endpoint, int statements, int budget) {
+        super(endpoint + " issued " + statements + " SQL statements, budget is " + budget);
+    }
+}
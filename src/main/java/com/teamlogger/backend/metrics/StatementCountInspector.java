@@ -0,0 +1,52 @@
+package com.teamlogger.backend.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Counts the SQL statements Hibernate prepares on the current thread while a count is open
+public class StatementCountInspector implements StatementInspector {
+    
+    private final ThreadLocal<AtomicInteger> counts = new ThreadLocal<>();
+    
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = counts.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+    
+    public void begin() {
+        counts.set(new AtomicInteger());
+    }
+    
+    public int end() {
+        AtomicInteger count = counts.get();
+        counts.remove();
+        return count != null ? count.get() : 0;
+    }
+    
+    // Binds the caller's open count to the task, so queries fanned out to other threads still count for the request
+    public <T> Supplier<T> propagate(Supplier<T> task) {
+        AtomicInteger count = counts.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            AtomicInteger previous = counts.get();
+            counts.set(count);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    counts.set(previous);
+                } else {
+                    counts.remove();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.teamlogger.backend.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Records how many SQL statements each request issued, tagged by route, and checks it against the endpoint's budget
+@Component
+public class StatementMetricsFilter extends OncePerRequestFilter {
+    
+    public static final String STATEMENT_COUNT_ATTRIBUTE = StatementMetricsFilter.class.getName() + ".statements";
+    public static final String STATEMENT_BUDGET_ATTRIBUTE = StatementMetricsFilter.class.getName() + ".budget";
+    
+    private static final Logger logger = LoggerFactory.getLogger(StatementMetricsFilter.class);
+    
+    @Autowired
+    private StatementCountInspector statementCountInspector;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${query-budget.default:10}")
+    private int defaultBudget;
+    
+    // Throw instead of logging when a request goes over budget; meant for tests and local runs
+    @Value("${query-budget.fail:false}")
+    private boolean failOnExceeded;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        
+        statementCountInspector.begin();
+        int statements;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = statementCountInspector.end();
+        }
+        
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("hibernate.statements.per.request")
+                .description("SQL statements prepared while handling one request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+        
+        int budget = resolveBudget(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, statements);
+        request.setAttribute(STATEMENT_BUDGET_ATTRIBUTE, budget);
+        
+        if (statements > budget) {
+            meterRegistry.counter("hibernate.statements.budget.exceeded", "method", request.getMethod(), "uri", uri)
+                    .increment();
+            if (failOnExceeded) {
+                throw new QueryBudgetExceededException(request.getMethod() + " " + uri, statements, budget);
+            }
+            logger.warn("{} {} issued {} SQL statements, budget is {}", request.getMethod(), uri, statements, budget);
+        }
+    }
+    
+    private int resolveBudget(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), QueryBudget.class);
+            if (budget == null) {
+                budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), QueryBudget.class);
+            }
+            if (budget != null) {
+                return budget.value();
+            }
+        }
+        return defaultBudget;
+    }
+}
@@ -0,0 +1,86 @@
+package com.teamlogger.backend.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Reports virtual threads that blocked while pinned to their carrier, such as inside a synchronized block or a
+// native frame. Counted per site, the first frame of our own code or "library"; each new stack is logged once.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    
+    private static final String OWN_PACKAGE = "com.teamlogger.";
+    
+    private static final int LOGGED_FRAMES = 15;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Short pins cost little; only waits at least this long are recorded
+    @Value("${virtual-threads.pinning-threshold:20}")
+    private long thresholdMillis;
+    
+    private final Set<String> loggedStacks = ConcurrentHashMap.newKeySet();
+    
+    private RecordingStream recording;
+    
+    @PostConstruct
+    public void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::pinned);
+        recording.startAsync();
+        logger.info("Recording virtual threads pinned for {} ms or longer", thresholdMillis);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        recording.close();
+    }
+    
+    private void pinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String site = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .filter(name -> name.startsWith(OWN_PACKAGE))
+                .findFirst()
+                .orElse("library");
+        meterRegistry.counter("virtual.threads.pinned", "site", site).increment();
+        
+        String stack = frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.joining("\n    at "));
+        if (loggedStacks.add(stack)) {
+            logger.warn("Virtual thread pinned for {} ms in {}\n    at {}", event.getDuration().toMillis(), site, stack);
+        }
+    }
+    
+    private static String describe(RecordedFrame frame) {
+        RecordedMethod method = frame.getMethod();
+        return method.getType().getName() + "." + method.getName() + ":" + frame.getLineNumber();
+    }
+}
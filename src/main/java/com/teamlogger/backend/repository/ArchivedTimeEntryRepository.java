@@ -0,0 +1,65 @@
+package com.teamlogger.backend.repository;
+
+import com.teamlogger.backend.entity.ArchivedTimeEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedTimeEntryRepository extends JpaRepository<ArchivedTimeEntry, Long> {
+    
+    // Copies rows as they are, keeping their ids; the caller deletes them from time_entries in the same transaction
+    @Modifying
+    @Query(value = "INSERT INTO time_entries_archive (id, user_id, project_id, task_id, punch_in_time, punch_out_time, " +
+            "lunch_in_time, lunch_out_time, break_start_time, break_end_time, total_work_hours, total_break_hours, " +
+            "total_lunch_hours, overtime_hours, is_active, notes, created_at, updated_at, is_manual_entry, approved_by, " +
+            "approved_at, is_approved, archived_at) " +
+            "SELECT id, user_id, project_id, task_id, punch_in_time, punch_out_time, lunch_in_time, lunch_out_time, " +
+            "break_start_time, break_end_time, total_work_hours, total_break_hours, total_lunch_hours, overtime_hours, " +
+            "is_active, notes, created_at, updated_at, is_manual_entry, approved_by, approved_at, is_approved, NOW() " +
+            "FROM time_entries WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromTimeEntries(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT MAX(a.punchInTime) FROM ArchivedTimeEntry a")
+    LocalDateTime findLatestPunchInTime();
+    
+    @Query("SELECT a FROM ArchivedTimeEntry a JOIN FETCH a.user LEFT JOIN FETCH a.project LEFT JOIN FETCH a.task " +
+            "WHERE a.user.id = :userId AND a.punchInTime >= :startDate AND a.punchInTime <= :endDate ORDER BY a.punchInTime, a.id")
+    List<ArchivedTimeEntry> findUserEntriesInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    // Same keyset as TimeEntryRepository.findUserTimeEntriesInDateRangeAfter, so pages of both tables merge
+    @Query("SELECT a FROM ArchivedTimeEntry a JOIN FETCH a.user LEFT JOIN FETCH a.project LEFT JOIN FETCH a.task " +
+            "WHERE a.user.id = :userId AND a.punchInTime >= :startDate AND a.punchInTime <= :endDate " +
+            "AND (a.punchInTime > :afterTime OR (a.punchInTime = :afterTime AND a.id > :afterId)) " +
+            "ORDER BY a.punchInTime, a.id")
+    Slice<ArchivedTimeEntry> findUserEntriesInDateRangeAfter(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate,
+                                                             @Param("endDate") LocalDateTime endDate, @Param("afterTime") LocalDateTime afterTime,
+                                                             @Param("afterId") Long afterId, Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM ArchivedTimeEntry a JOIN FETCH a.user LEFT JOIN FETCH a.project LEFT JOIN FETCH a.task " +
+            "WHERE a.user.id = :userId AND a.punchInTime >= :startDate AND a.punchInTime <= :endDate ORDER BY a.punchInTime, a.id")
+    Stream<ArchivedTimeEntry> streamUserEntriesInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT COUNT(a) FROM ArchivedTimeEntry a WHERE a.user.id = :userId AND a.punchInTime >= :startDate AND a.punchInTime <= :endDate")
+    Long countUserEntriesInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT a FROM ArchivedTimeEntry a JOIN FETCH a.user LEFT JOIN FETCH a.project LEFT JOIN FETCH a.task " +
+            "WHERE a.overtimeHours > 0 AND a.punchInTime >= :startDate AND a.punchInTime <= :endDate")
+    List<ArchivedTimeEntry> findOvertimeEntriesInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+}
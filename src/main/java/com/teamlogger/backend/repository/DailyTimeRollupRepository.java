@@ -0,0 +1,59 @@
+package com.teamlogger.backend.repository;
+
+import com.teamlogger.backend.entity.DailyTimeRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyTimeRollupRepository extends JpaRepository<DailyTimeRollup, Long> {
+    
+    List<DailyTimeRollup> findByUserIdAndRollupDateBetween(Long userId, LocalDate startDate, LocalDate endDate);
+    
+    @Modifying
+    @Query(value = "INSERT INTO daily_time_rollups (user_id, project_id, rollup_date, total_work_hours, overtime_hours, entry_count, updated_at) " +
+            "VALUES (:userId, :projectId, :rollupDate, :workHours, :overtimeHours, :entryCount, NOW()) " +
+            "ON DUPLICATE KEY UPDATE total_work_hours = total_work_hours + VALUES(total_work_hours), " +
+            "overtime_hours = overtime_hours + VALUES(overtime_hours), " +
+            "entry_count = entry_count + VALUES(entry_count), updated_at = NOW()", nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId, @Param("projectId") Long projectId, @Param("rollupDate") LocalDate rollupDate,
+                   @Param("workHours") double workHours, @Param("overtimeHours") double overtimeHours, @Param("entryCount") long entryCount);
+    
+    @Modifying
+    @Query(value = "INSERT INTO daily_time_rollups (user_id, project_id, rollup_date, total_work_hours, overtime_hours, entry_count, updated_at) " +
+            "SELECT te.user_id, COALESCE(te.project_id, 0), DATE(te.punch_in_time), COALESCE(SUM(te.total_work_hours), 0), " +
+            "COALESCE(SUM(te.overtime_hours), 0), COUNT(*), NOW() " +
+            "FROM (SELECT user_id, project_id, punch_in_time, total_work_hours, overtime_hours FROM time_entries " +
+            "UNION ALL SELECT user_id, project_id, punch_in_time, total_work_hours, overtime_hours FROM time_entries_archive) te " +
+            "GROUP BY te.user_id, COALESCE(te.project_id, 0), DATE(te.punch_in_time)", nativeQuery = true)
+    int rebuildFromTimeEntries();
+    
+    @Query("SELECT SUM(r.totalWorkHours) FROM DailyTimeRollup r WHERE r.userId = :userId AND r.rollupDate >= :startDate AND r.rollupDate <= :endDate")
+    Double sumWorkHoursForUserInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT r.rollupDate, SUM(r.totalWorkHours) FROM DailyTimeRollup r WHERE r.userId = :userId AND r.rollupDate >= :startDate AND r.rollupDate <= :endDate GROUP BY r.rollupDate ORDER BY r.rollupDate")
+    List<Object[]> sumWorkHoursByDayForUserInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT r.userId, SUM(r.totalWorkHours) FROM DailyTimeRollup r WHERE r.rollupDate >= :startDate AND r.rollupDate <= :endDate GROUP BY r.userId")
+    List<Object[]> sumWorkHoursByUserInDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT r.userId, SUM(r.totalWorkHours), SUM(r.overtimeHours), SUM(r.entryCount) FROM DailyTimeRollup r WHERE r.rollupDate >= :startDate AND r.rollupDate <= :endDate GROUP BY r.userId")
+    List<Object[]> sumTotalsByUserInDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT SUM(r.overtimeHours) FROM DailyTimeRollup r WHERE r.userId = :userId AND r.rollupDate >= :startDate AND r.rollupDate <= :endDate")
+    Double sumOvertimeForUserInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT SUM(r.totalWorkHours) / SUM(r.entryCount) FROM DailyTimeRollup r WHERE r.userId = :userId AND r.rollupDate >= :startDate AND r.rollupDate <= :endDate AND r.entryCount > 0")
+    Double averageHoursPerEntryForUserInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT SUM(r.totalWorkHours) FROM DailyTimeRollup r WHERE r.rollupDate >= :startDate AND r.rollupDate <= :endDate")
+    Double sumWorkHoursInDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT SUM(r.overtimeHours) FROM DailyTimeRollup r WHERE r.rollupDate >= :startDate AND r.rollupDate <= :endDate")
+    Double sumOvertimeInDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
\ No newline at end of file
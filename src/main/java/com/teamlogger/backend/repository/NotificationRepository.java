@@ -0,0 +1,37 @@
+package com.teamlogger.backend.repository;
+
+import com.teamlogger.backend.entity.Notification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+    
+    // SKIP LOCKED lets every node claim its own batch without waiting on the others
+    @Query(value = "SELECT n.id FROM notifications n WHERE n.email_requested = true AND n.is_email_sent = false " +
+            "AND n.email_attempts < :maxAttempts AND (n.next_email_attempt_at IS NULL OR n.next_email_attempt_at <= :now) " +
+            "ORDER BY n.user_id, n.created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockPendingEmails(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.nextEmailAttemptAt = :until WHERE n.id IN :ids")
+    int claimEmails(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+    
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user WHERE n.id IN :ids ORDER BY n.user.id, n.createdAt")
+    List<Notification> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.isEmailSent = true, n.emailSentAt = :sentAt, n.emailError = null WHERE n.id IN :ids")
+    int markEmailsSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.emailAttempts = n.emailAttempts + 1, n.nextEmailAttemptAt = :nextAttemptAt, n.emailError = :error WHERE n.id IN :ids")
+    int markEmailsFailed(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+} 
\ No newline at end of file
@@ -1,21 +1,54 @@
 package com.teamlogger.backend.repository;
 
 import com.teamlogger.backend.entity.Project;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
     
+    // Members are a collection, so the page is cut on ids first and fetched with its graph second
+    @Query("SELECT p.id FROM Project p WHERE p.id > :afterId ORDER BY p.id")
+    Slice<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"manager", "members"})
+    @Query("SELECT p FROM Project p WHERE p.id IN :ids ORDER BY p.id")
+    List<Project> findWithMembersByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id FROM Project p WHERE p.manager.id = :managerId AND p.id > :afterId ORDER BY p.id")
+    Slice<Long> findIdsByManagerAfter(@Param("managerId") Long managerId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT p.id FROM Project p JOIN p.members m WHERE m.id = :userId AND p.id > :afterId ORDER BY p.id")
+    Slice<Long> findIdsByMemberAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT p.id FROM Project p WHERE p.status = :status AND p.id > :afterId ORDER BY p.id")
+    Slice<Long> findIdsByStatusAfter(@Param("status") Project.ProjectStatus status, @Param("afterId") Long afterId,
+                                     Pageable pageable);
+    
+    @Query("SELECT p.id FROM Project p WHERE p.deadline < :currentDate AND p.status != 'COMPLETED' " +
+            "AND p.status != 'CANCELLED' AND p.id > :afterId ORDER BY p.id")
+    Slice<Long> findOverdueIdsAfter(@Param("currentDate") LocalDateTime currentDate, @Param("afterId") Long afterId,
+                                    Pageable pageable);
+    
+    @Query("SELECT COUNT(p) FROM Project p WHERE p.deadline < :currentDate AND p.status != 'COMPLETED' AND p.status != 'CANCELLED'")
+    long countOverdueProjects(@Param("currentDate") LocalDateTime currentDate);
+    
     List<Project> findByManagerId(Long managerId);
     
     List<Project> findByStatus(Project.ProjectStatus status);
     
+    @Query("SELECT COUNT(p) FROM Project p WHERE p.status = :status")
+    Long countByStatus(@Param("status") Project.ProjectStatus status);
+    
     List<Project> findByPriority(Project.ProjectPriority priority);
     
     List<Project> findByIsArchived(boolean isArchived);
@@ -29,8 +62,18 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     @Query("SELECT p FROM Project p WHERE p.endDate BETWEEN :startDate AND :endDate")
     List<Project> findProjectsEndingBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT p FROM Project p WHERE p.name LIKE %:searchTerm% OR p.description LIKE %:searchTerm% OR p.clientName LIKE %:searchTerm%")
-    List<Project> searchProjects(@Param("searchTerm") String searchTerm);
+    @Query(value = "SELECT p.id FROM projects p WHERE MATCH(p.name, p.description, p.client_name) AGAINST (:query IN BOOLEAN MODE) " +
+            "AND (:status IS NULL OR p.status = :status) AND (:priority IS NULL OR p.priority = :priority) " +
+            "ORDER BY MATCH(p.name, p.description, p.client_name) AGAINST (:query IN BOOLEAN MODE) DESC, p.id", nativeQuery = true)
+    Slice<Long> searchIds(@Param("query") String query, @Param("status") String status, @Param("priority") String priority,
+                          Pageable pageable);
+    
+    // Unranked substring match for databases without FULLTEXT support (search.fulltext=false)
+    @Query(value = "SELECT p.id FROM projects p WHERE (LOWER(p.name) LIKE :pattern OR LOWER(p.description) LIKE :pattern " +
+            "OR LOWER(p.client_name) LIKE :pattern) AND (:status IS NULL OR p.status = :status) " +
+            "AND (:priority IS NULL OR p.priority = :priority) ORDER BY p.id", nativeQuery = true)
+    Slice<Long> searchIdsByPattern(@Param("pattern") String pattern, @Param("status") String status, @Param("priority") String priority,
+                                   Pageable pageable);
     
     @Query("SELECT COUNT(p) FROM Project p WHERE p.status = :status")
     Long countProjectsByStatus(@Param("status") Project.ProjectStatus status);
@@ -0,0 +1,17 @@
+package com.teamlogger.backend.repository;
+
+import com.teamlogger.backend.entity.PunchLogCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PunchLogCheckpointRepository extends JpaRepository<PunchLogCheckpoint, String> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO punch_log_checkpoints (node_id, position, updated_at) VALUES (:nodeId, :position, NOW()) " +
+            "ON DUPLICATE KEY UPDATE position = VALUES(position), updated_at = NOW()", nativeQuery = true)
+    int savePosition(@Param("nodeId") String nodeId, @Param("position") long position);
+}
@@ -0,0 +1,9 @@
+package com.teamlogger.backend.repository;
+
+import com.teamlogger.backend.entity.PunchLogDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PunchLogDeadLetterRepository extends JpaRepository<PunchLogDeadLetter, Long> {
+}
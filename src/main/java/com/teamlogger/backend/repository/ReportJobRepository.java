@@ -0,0 +1,28 @@
+package com.teamlogger.backend.repository;
+
+import com.teamlogger.backend.entity.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+    
+    Optional<ReportJob> findByDedupKey(String dedupKey);
+    
+    List<ReportJob> findByRequestedByOrderByCreatedAtDesc(Long requestedBy);
+    
+    @Query("SELECT r FROM ReportJob r WHERE r.expiresAt < :now AND r.status <> com.teamlogger.backend.entity.ReportJob.ReportStatus.EXPIRED")
+    List<ReportJob> findExpiredJobs(@Param("now") LocalDateTime now);
+    
+    // Progress is written on its own so a running job never overwrites a concurrent status change
+    @Modifying
+    @Query("UPDATE ReportJob r SET r.progress = :progress WHERE r.id = :id AND r.status = com.teamlogger.backend.entity.ReportJob.ReportStatus.RUNNING")
+    int updateProgress(@Param("id") Long id, @Param("progress") int progress);
+}
\ No newline at end of file
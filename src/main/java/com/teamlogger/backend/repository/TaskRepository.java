@@ -1,17 +1,43 @@
 package com.teamlogger.backend.repository;
 
 import com.teamlogger.backend.entity.Task;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     
+    // Keyset page; a Slice reads one extra row instead of running a COUNT
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    Slice<Task> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    // Keyset pages of the filtered lists, with the same graph as the full list
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    Slice<Task> findByProjectIdAndIdGreaterThanOrderByIdAsc(Long projectId, Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    Slice<Task> findByAssignedToIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    Slice<Task> findByCreatedByIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    Slice<Task> findByStatusAndIdGreaterThanOrderByIdAsc(Task.TaskStatus status, Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    @Query("SELECT t FROM Task t WHERE t.dueDate < :currentDate AND t.status != 'COMPLETED' AND t.id > :afterId ORDER BY t.id")
+    Slice<Task> findOverdueTasksAfter(@Param("currentDate") LocalDateTime currentDate, @Param("afterId") Long afterId,
+                                      Pageable pageable);
+    
     List<Task> findByProjectId(Long projectId);
     
     List<Task> findByAssignedToId(Long userId);
@@ -28,11 +54,31 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("SELECT t FROM Task t WHERE t.dueDate < :currentDate AND t.status != 'COMPLETED'")
     List<Task> findOverdueTasks(@Param("currentDate") LocalDateTime currentDate);
     
+    @Query("SELECT COUNT(t) FROM Task t WHERE t.dueDate < :currentDate AND t.status != 'COMPLETED'")
+    long countOverdueTasks(@Param("currentDate") LocalDateTime currentDate);
+    
     @Query("SELECT t FROM Task t WHERE t.project.id = :projectId AND t.status != 'COMPLETED'")
     List<Task> findActiveTasksByProject(@Param("projectId") Long projectId);
     
-    @Query("SELECT t FROM Task t WHERE t.title LIKE %:searchTerm% OR t.description LIKE %:searchTerm%")
-    List<Task> searchTasks(@Param("searchTerm") String searchTerm);
+    // Ranked by FULLTEXT relevance; query is in boolean mode, see SearchService.toBooleanQuery
+    @Query(value = "SELECT t.id FROM tasks t WHERE MATCH(t.title, t.description, t.tags) AGAINST (:query IN BOOLEAN MODE) " +
+            "AND (:status IS NULL OR t.status = :status) AND (:priority IS NULL OR t.priority = :priority) " +
+            "AND (:projectId IS NULL OR t.project_id = :projectId) " +
+            "ORDER BY MATCH(t.title, t.description, t.tags) AGAINST (:query IN BOOLEAN MODE) DESC, t.id", nativeQuery = true)
+    Slice<Long> searchIds(@Param("query") String query, @Param("status") String status, @Param("priority") String priority,
+                          @Param("projectId") Long projectId, Pageable pageable);
+    
+    // Unranked substring match for databases without FULLTEXT support (search.fulltext=false)
+    @Query(value = "SELECT t.id FROM tasks t WHERE (LOWER(t.title) LIKE :pattern OR LOWER(t.description) LIKE :pattern " +
+            "OR LOWER(t.tags) LIKE :pattern) AND (:status IS NULL OR t.status = :status) " +
+            "AND (:priority IS NULL OR t.priority = :priority) AND (:projectId IS NULL OR t.project_id = :projectId) " +
+            "ORDER BY t.id", nativeQuery = true)
+    Slice<Long> searchIdsByPattern(@Param("pattern") String pattern, @Param("status") String status, @Param("priority") String priority,
+                                   @Param("projectId") Long projectId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"project", "assignedTo", "createdBy"})
+    @Query("SELECT t FROM Task t WHERE t.id IN :ids")
+    List<Task> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT COUNT(t) FROM Task t WHERE t.status = :status")
     Long countByStatus(@Param("status") Task.TaskStatus status);
@@ -52,6 +98,9 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("SELECT t FROM Task t WHERE t.assignedTo.id = :userId AND t.dueDate < :currentDate AND t.status != 'COMPLETED'")
     List<Task> findOverdueTasksByUser(@Param("userId") Long userId, @Param("currentDate") LocalDateTime currentDate);
     
+    @Query("SELECT COUNT(t) FROM Task t WHERE t.assignedTo.id = :userId AND t.dueDate < :currentDate AND t.status != 'COMPLETED'")
+    long countOverdueTasksByUser(@Param("userId") Long userId, @Param("currentDate") LocalDateTime currentDate);
+    
     @Query("SELECT SUM(t.actualHours) FROM Task t WHERE t.assignedTo.id = :userId AND t.status = 'COMPLETED'")
     Double calculateTotalCompletedHoursByUser(@Param("userId") Long userId);
     
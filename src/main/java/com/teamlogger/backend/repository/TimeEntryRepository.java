@@ -1,14 +1,23 @@
 package com.teamlogger.backend.repository;
 
 import com.teamlogger.backend.entity.TimeEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TimeEntryRepository extends JpaRepository<TimeEntry, Long> {
@@ -25,13 +34,57 @@ public interface TimeEntryRepository extends JpaRepository<TimeEntry, Long> {
     
     List<TimeEntry> findByIsActive(boolean isActive);
     
+    // Open entries with the user, project and task the active time entry index keeps names from
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task " +
+            "WHERE te.isActive = true")
+    List<TimeEntry> findActiveWithDetails();
+    
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task " +
+            "WHERE te.user.id = :userId AND te.isActive = true")
+    Optional<TimeEntry> findActiveWithDetailsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT te.user.id, te.id FROM TimeEntry te WHERE te.isActive = true")
+    List<Object[]> findActiveUserAndEntryIds();
+    
+    // Conditional on the state the caller checked, so starting lunch or a break needs no read of the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE TimeEntry te SET te.lunchInTime = :time, te.updatedAt = :time " +
+            "WHERE te.id = :id AND te.isActive = true AND te.lunchInTime IS NULL")
+    int startLunch(@Param("id") Long id, @Param("time") LocalDateTime time);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE TimeEntry te SET te.breakStartTime = :time, te.updatedAt = :time " +
+            "WHERE te.id = :id AND te.isActive = true AND (te.breakStartTime IS NULL OR te.breakEndTime IS NOT NULL)")
+    int startBreak(@Param("id") Long id, @Param("time") LocalDateTime time);
+    
     List<TimeEntry> findByIsApproved(boolean isApproved);
     
     List<TimeEntry> findByIsManualEntry(boolean isManualEntry);
     
-    @Query("SELECT te FROM TimeEntry te WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
+    // Fetches user, project and task so serializing the range does not load them per entry
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task " +
+            "WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate ORDER BY te.punchInTime")
     List<TimeEntry> findUserTimeEntriesInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
+    // Keyset page ordered by (punchInTime, id), continuing after the given entry
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task " +
+            "WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate " +
+            "AND (te.punchInTime > :afterTime OR (te.punchInTime = :afterTime AND te.id > :afterId)) " +
+            "ORDER BY te.punchInTime, te.id")
+    Slice<TimeEntry> findUserTimeEntriesInDateRangeAfter(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate,
+                                                         @Param("endDate") LocalDateTime endDate, @Param("afterTime") LocalDateTime afterTime,
+                                                         @Param("afterId") Long afterId, Pageable pageable);
+    
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate ORDER BY te.punchInTime")
+    Stream<TimeEntry> streamUserTimeEntriesInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
     @Query("SELECT SUM(te.totalWorkHours) FROM TimeEntry te WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
     Double calculateTotalHoursForUserInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
@@ -41,19 +94,22 @@ public interface TimeEntryRepository extends JpaRepository<TimeEntry, Long> {
     @Query("SELECT te FROM TimeEntry te WHERE te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
     List<TimeEntry> findAllTimeEntriesInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT te FROM TimeEntry te WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate AND te.isApproved = false")
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task " +
+            "WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate AND te.isApproved = false")
     List<TimeEntry> findPendingApprovalTimeEntries(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT AVG(te.totalWorkHours) FROM TimeEntry te WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
     Double calculateAverageHoursPerDay(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT te FROM TimeEntry te WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate ORDER BY te.punchInTime DESC")
+    // Fetches the user so building activity rows does not load it per entry
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate ORDER BY te.punchInTime DESC")
     List<TimeEntry> findRecentTimeEntries(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT COUNT(te) FROM TimeEntry te WHERE te.user.id = :userId AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
     Long countTimeEntriesForUserInDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT te FROM TimeEntry te WHERE te.overtimeHours > 0 AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
+    @Query("SELECT te FROM TimeEntry te JOIN FETCH te.user LEFT JOIN FETCH te.project LEFT JOIN FETCH te.task " +
+            "WHERE te.overtimeHours > 0 AND te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
     List<TimeEntry> findOvertimeEntriesInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT SUM(te.totalWorkHours) FROM TimeEntry te WHERE te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
@@ -61,4 +117,14 @@ public interface TimeEntryRepository extends JpaRepository<TimeEntry, Long> {
     
     @Query("SELECT SUM(te.overtimeHours) FROM TimeEntry te WHERE te.punchInTime >= :startDate AND te.punchInTime <= :endDate")
     Double calculateTotalOvertimeInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    // Closed, approved entries due for the archive; locked so they cannot change while they are copied
+    @Query(value = "SELECT te.id FROM time_entries te WHERE te.punch_in_time < :cutoff AND te.is_active = false " +
+            "AND te.is_approved = true AND te.punch_out_time IS NOT NULL ORDER BY te.punch_in_time LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockArchivableIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("DELETE FROM TimeEntry te WHERE te.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 } 
\ No newline at end of file
@@ -1,12 +1,16 @@
 package com.teamlogger.backend.repository;
 
 import com.teamlogger.backend.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,8 +29,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByRole(User.UserRole role);
     
+    Slice<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
     List<User> findByIsActive(boolean isActive);
     
+    Slice<User> findByIsActiveAndIdGreaterThanOrderByIdAsc(boolean isActive, Long afterId, Pageable pageable);
+    
+    Slice<User> findByRoleAndIdGreaterThanOrderByIdAsc(User.UserRole role, Long afterId, Pageable pageable);
+    
     List<User> findByIsOnline(boolean isOnline);
     
     @Query("SELECT u FROM User u WHERE u.lastLogin < :cutoffDate")
@@ -44,9 +54,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     Long countByRole(User.UserRole role);
     
-    @Query("SELECT u FROM User u WHERE u.username LIKE %:searchTerm% OR u.firstName LIKE %:searchTerm% OR u.lastName LIKE %:searchTerm% OR u.email LIKE %:searchTerm%")
-    List<User> searchUsers(@Param("searchTerm") String searchTerm);
+    @Query(value = "SELECT u.id FROM users u WHERE MATCH(u.username, u.email, u.first_name, u.last_name) AGAINST (:query IN BOOLEAN MODE) " +
+            "AND (:role IS NULL OR u.role = :role) AND (:active IS NULL OR u.is_active = :active) " +
+            "ORDER BY MATCH(u.username, u.email, u.first_name, u.last_name) AGAINST (:query IN BOOLEAN MODE) DESC, u.id", nativeQuery = true)
+    Slice<Long> searchIds(@Param("query") String query, @Param("role") String role, @Param("active") Boolean active,
+                          Pageable pageable);
+    
+    // Unranked substring match for databases without FULLTEXT support (search.fulltext=false)
+    @Query(value = "SELECT u.id FROM users u WHERE (LOWER(u.username) LIKE :pattern OR LOWER(u.email) LIKE :pattern " +
+            "OR LOWER(u.first_name) LIKE :pattern OR LOWER(u.last_name) LIKE :pattern) " +
+            "AND (:role IS NULL OR u.role = :role) AND (:active IS NULL OR u.is_active = :active) ORDER BY u.id", nativeQuery = true)
+    Slice<Long> searchIdsByPattern(@Param("pattern") String pattern, @Param("role") String role, @Param("active") Boolean active,
+                                   Pageable pageable);
     
     @Query("SELECT u FROM User u WHERE u.createdAt >= :startDate AND u.createdAt <= :endDate")
     List<User> findUsersCreatedBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = :isOnline WHERE u.id IN :userIds")
+    int updateOnlineStatus(@Param("userIds") Collection<Long> userIds, @Param("isOnline") boolean isOnline);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.lastLogin = :loginTime WHERE u.id IN :userIds")
+    int updateLastLogin(@Param("userIds") Collection<Long> userIds, @Param("loginTime") LocalDateTime loginTime);
 } 
\ No newline at end of file
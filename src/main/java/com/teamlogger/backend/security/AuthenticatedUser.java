@@ -0,0 +1,34 @@
+package com.teamlogger.backend.security;
+
+import com.teamlogger.backend.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+// Principal built from JWT claims, so authenticated requests do not need to load the User row
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements Principal {
+    
+    private final Long id;
+    private final String username;
+    private final User.UserRole role;
+    
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+    
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+    
+    @Override
+    public String getName() {
+        return username;
+    }
+}
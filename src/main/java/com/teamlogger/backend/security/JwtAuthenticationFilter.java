@@ -1,5 +1,8 @@
 package com.teamlogger.backend.security;
 
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.service.PresenceService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,6 +28,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -32,15 +41,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.getValidatedClaims(jwt) : null;
+            
+            if (claims != null) {
+                AuthenticatedUser principal = resolvePrincipal(claims);
                 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (principal != null) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            principal, null, principal.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    
+                    // Any authenticated request counts as a presence heartbeat
+                    presenceService.heartbeat(principal.getId());
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -49,6 +64,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    private AuthenticatedUser resolvePrincipal(Claims claims) {
+        Object userId = claims.get(JwtTokenProvider.USER_ID_CLAIM);
+        Object role = claims.get(JwtTokenProvider.ROLE_CLAIM);
+        
+        if (userId == null || role == null) {
+            // Token issued before user claims were embedded
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            return userDetails instanceof User user && user.isEnabled() ? AuthenticatedUser.from(user) : null;
+        }
+        
+        Long id = ((Number) userId).longValue();
+        Object version = claims.get(JwtTokenProvider.VERSION_CLAIM);
+        if (!tokenVersionRegistry.isCurrent(id, version != null ? ((Number) version).intValue() : 0)) {
+            return null;
+        }
+        
+        return new AuthenticatedUser(id, claims.getSubject(), User.UserRole.valueOf(role.toString()));
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,7 +1,12 @@
 package com.teamlogger.backend.security;
 
+import com.teamlogger.backend.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,18 +14,51 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
     
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String VERSION_CLAIM = "ver";
+    
     @Value("${jwt.secret}")
     private String jwtSecret;
     
     @Value("${jwt.expiration}")
     private long jwtExpiration;
     
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${jwt.claims-cache-size:10000}")
+    private int claimsCacheSize;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Key signingKey;
+    
+    private JwtParser jwtParser;
+    
+    // Validated claims by token, so repeat requests skip signature verification
+    private final ConcurrentHashMap<String, Claims> claimsCache = new ConcurrentHashMap<>();
+    
+    // Cached tokens in the order they were added. Every token lives for jwt.expiration, so this is also expiry order
+    private final ConcurrentLinkedQueue<String> claimsCacheOrder = new ConcurrentLinkedQueue<>();
+    
+    private Timer validTokenTimer;
+    
+    private Timer invalidTokenTimer;
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        validTokenTimer = validationTimer("valid");
+        invalidTokenTimer = validationTimer("invalid");
     }
     
     public String generateToken(Authentication authentication) {
@@ -28,11 +66,20 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
         
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(userDetails.getUsername());
+        
+        // Lets JwtAuthenticationFilter authenticate without loading the user
+        if (userDetails instanceof User user) {
+            builder.claim(USER_ID_CLAIM, user.getId())
+                    .claim(ROLE_CLAIM, user.getRole().name())
+                    .claim(VERSION_CLAIM, user.getTokenVersion() != null ? user.getTokenVersion() : 0);
+        }
+        
+        return builder
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
@@ -44,44 +91,76 @@ public class JwtTokenProvider {
                 .setSubject(username)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public Claims getClaimsFromToken(String token) {
+        Claims cached = claimsCache.get(token);
+        if (cached != null && (cached.getExpiration() == null || cached.getExpiration().after(new Date()))) {
+            return cached;
+        }
+        // Expired entries stay until they reach the head of the queue; the parser raises ExpiredJwtException
         
-        return claims.getSubject();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        cacheClaims(token, claims);
+        return claims;
     }
     
-    public boolean validateToken(String token) {
+    public Claims getValidatedClaims(String token) {
+        long start = System.nanoTime();
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            Claims claims = getClaimsFromToken(token);
+            validTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            invalidTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
         }
     }
     
+    public String getUsernameFromToken(String token) {
+        return getClaimsFromToken(token).getSubject();
+    }
+    
+    public Long getUserIdFromToken(String token) {
+        Object userId = getClaimsFromToken(token).get(USER_ID_CLAIM);
+        return userId != null ? ((Number) userId).longValue() : null;
+    }
+    
+    public boolean validateToken(String token) {
+        return getValidatedClaims(token) != null;
+    }
+    
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.getExpiration();
+        return getClaimsFromToken(token).getExpiration();
     }
     
     public boolean isTokenExpired(String token) {
         Date expiration = getExpirationDateFromToken(token);
         return expiration.before(new Date());
     }
-} 
\ No newline at end of file
+    
+    private Timer validationTimer(String result) {
+        return Timer.builder("jwt.validation")
+                .description("Time to validate a bearer token, including claims cache hits")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private void cacheClaims(String token, Claims claims) {
+        if (claimsCache.putIfAbsent(token, claims) != null) {
+            return;
+        }
+        claimsCacheOrder.offer(token);
+        
+        // Full: drop the oldest tokens, which are expired or closest to it; they are re-verified on next use
+        while (claimsCache.size() > claimsCacheSize) {
+            String eldest = claimsCacheOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            claimsCache.remove(eldest);
+        }
+    }
+}
\ No newline at end of file
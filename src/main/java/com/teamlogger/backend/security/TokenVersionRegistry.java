@@ -0,0 +1,53 @@
+package com.teamlogger.backend.security;
+
+import com.teamlogger.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Short-lived copy of users.token_version. Each user's version is re-read once it is older than the check interval,
+// so a revocation made on another node takes effect here within that interval instead of at token expiry.
+@Component
+public class TokenVersionRegistry {
+    
+    // Deleted users have no row; none of their tokens is current
+    private static final int NO_USER = Integer.MAX_VALUE;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${jwt.version-check-interval:30000}")
+    private long checkInterval;
+    
+    private final ConcurrentHashMap<Long, CheckedVersion> versions = new ConcurrentHashMap<>();
+    
+    public int getVersion(Long userId) {
+        CheckedVersion checked = versions.get(userId);
+        long now = System.currentTimeMillis();
+        if (checked == null || now - checked.checkedAt() >= checkInterval) {
+            // Read outside the map so concurrent requests for other users are not held up by the query
+            int version = userRepository.findTokenVersionById(userId).orElse(NO_USER);
+            checked = versions.merge(userId, new CheckedVersion(version, now), CheckedVersion::newer);
+        }
+        return checked.version();
+    }
+    
+    // Called once the new version is saved, so this node does not wait for the next check
+    public void setVersion(Long userId, int version) {
+        versions.merge(userId, new CheckedVersion(version, System.currentTimeMillis()), CheckedVersion::newer);
+    }
+    
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= getVersion(userId);
+    }
+    
+    private record CheckedVersion(int version, long checkedAt) {
+        
+        // Versions only go up, so a slow read never undoes a revocation recorded in the meantime
+        CheckedVersion newer(CheckedVersion other) {
+            return new CheckedVersion(Math.max(version, other.version), Math.max(checkedAt, other.checkedAt));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.Project;
+import com.teamlogger.backend.entity.Task;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.TimeEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Open time entry per user, so punch checks and /current polls do not query time_entries. Entries are kept as
+// detached snapshots whose user, project and task references hold only the id and display name, and callers always
+// get their own copy. The index is trusted on this node; verify() catches writes made elsewhere.
+@Service
+public class ActiveTimeEntryIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActiveTimeEntryIndex.class);
+    
+    @Autowired
+    private TimeEntryRepository timeEntryRepository;
+    
+    // With the punch log the index runs ahead of time_entries, so there is nothing to compare against
+    @Value("${punch-log.enabled:false}")
+    private boolean punchLogEnabled;
+    
+    private final ConcurrentHashMap<Long, TimeEntry> entries = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void load() {
+        for (TimeEntry entry : timeEntryRepository.findActiveWithDetails()) {
+            entries.put(entry.getUser().getId(), snapshotOf(entry));
+        }
+        logger.info("Loaded {} active time entries", entries.size());
+    }
+    
+    public TimeEntry get(Long userId) {
+        TimeEntry entry = entries.get(userId);
+        return entry != null ? snapshotOf(entry) : null;
+    }
+    
+    public List<TimeEntry> getAll() {
+        return entries.values().stream().map(ActiveTimeEntryIndex::snapshotOf).toList();
+    }
+    
+    // A reference the source has not loaded keeps the name already indexed for it
+    public void put(TimeEntry entry) {
+        entries.compute(entry.getUser().getId(), (userId, current) -> withNames(snapshotOf(entry), current));
+    }
+    
+    // The entry as put would index it, for a caller about to remove it
+    public TimeEntry copyOf(TimeEntry entry) {
+        return withNames(snapshotOf(entry), entries.get(entry.getUser().getId()));
+    }
+    
+    public void remove(Long userId) {
+        entries.remove(userId);
+    }
+    
+    // Re-reads one user's open entry when the table may be ahead of the index; returns the row as read
+    public TimeEntry reload(Long userId) {
+        TimeEntry entry = timeEntryRepository.findActiveWithDetailsByUserId(userId).orElse(null);
+        if (entry != null) {
+            put(entry);
+        } else {
+            remove(userId);
+        }
+        return entry;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    // Catches writes the index did not see, such as another node or a manual fix in the database
+    @Scheduled(fixedDelayString = "${active-index.verify-interval:300000}", initialDelayString = "${active-index.verify-interval:300000}")
+    public void verify() {
+        if (punchLogEnabled) {
+            return;
+        }
+        Map<Long, Long> activeIds = new HashMap<>();
+        for (Object[] row : timeEntryRepository.findActiveUserAndEntryIds()) {
+            activeIds.put((Long) row[0], (Long) row[1]);
+        }
+        
+        Set<Long> userIds = new HashSet<>(activeIds.keySet());
+        userIds.addAll(entries.keySet());
+        int reloaded = 0;
+        for (Long userId : userIds) {
+            TimeEntry indexed = entries.get(userId);
+            if (!Objects.equals(indexed != null ? indexed.getId() : null, activeIds.get(userId))) {
+                // Could also be a punch that landed between the two reads; re-reading is right either way
+                reload(userId);
+                reloaded++;
+            }
+        }
+        if (reloaded > 0) {
+            logger.warn("Active time entry index disagreed with time_entries for {} user(s); reloaded them", reloaded);
+        }
+    }
+    
+    // Names are copied only from loaded references, so snapshots never load the user, project or task
+    static TimeEntry snapshotOf(TimeEntry source) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(source.getId());
+        entry.setUser(userReference(source.getUser()));
+        entry.setProject(projectReference(source.getProject()));
+        entry.setTask(taskReference(source.getTask()));
+        entry.setPunchInTime(source.getPunchInTime());
+        entry.setPunchOutTime(source.getPunchOutTime());
+        entry.setLunchInTime(source.getLunchInTime());
+        entry.setLunchOutTime(source.getLunchOutTime());
+        entry.setBreakStartTime(source.getBreakStartTime());
+        entry.setBreakEndTime(source.getBreakEndTime());
+        entry.setTotalWorkHours(source.getTotalWorkHours());
+        entry.setTotalBreakHours(source.getTotalBreakHours());
+        entry.setTotalLunchHours(source.getTotalLunchHours());
+        entry.setOvertimeHours(source.getOvertimeHours());
+        entry.setActive(source.isActive());
+        entry.setNotes(source.getNotes());
+        entry.setCreatedAt(source.getCreatedAt());
+        entry.setUpdatedAt(source.getUpdatedAt());
+        entry.setManualEntry(source.isManualEntry());
+        entry.setApprovedBy(source.getApprovedBy());
+        entry.setApprovedAt(source.getApprovedAt());
+        entry.setApproved(source.isApproved());
+        return entry;
+    }
+    
+    private static TimeEntry withNames(TimeEntry entry, TimeEntry indexed) {
+        if (indexed == null) {
+            return entry;
+        }
+        if (entry.getUser().getFirstName() == null && entry.getUser().getLastName() == null) {
+            entry.getUser().setFirstName(indexed.getUser().getFirstName());
+            entry.getUser().setLastName(indexed.getUser().getLastName());
+        }
+        if (entry.getProject() != null && entry.getProject().getName() == null && indexed.getProject() != null
+                && entry.getProject().getId().equals(indexed.getProject().getId())) {
+            entry.getProject().setName(indexed.getProject().getName());
+        }
+        if (entry.getTask() != null && entry.getTask().getTitle() == null && indexed.getTask() != null
+                && entry.getTask().getId().equals(indexed.getTask().getId())) {
+            entry.getTask().setTitle(indexed.getTask().getTitle());
+        }
+        return entry;
+    }
+    
+    private static User userReference(User source) {
+        User user = userReference(source.getId());
+        if (Hibernate.isInitialized(source)) {
+            user.setFirstName(source.getFirstName());
+            user.setLastName(source.getLastName());
+        }
+        return user;
+    }
+    
+    private static Project projectReference(Project source) {
+        Project project = projectReference(source != null ? source.getId() : null);
+        if (project != null && Hibernate.isInitialized(source)) {
+            project.setName(source.getName());
+        }
+        return project;
+    }
+    
+    private static Task taskReference(Task source) {
+        Task task = taskReference(source != null ? source.getId() : null);
+        if (task != null && Hibernate.isInitialized(source)) {
+            task.setTitle(source.getTitle());
+        }
+        return task;
+    }
+    
+    static User userReference(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+    
+    static Project projectReference(Long projectId) {
+        if (projectId == null) {
+            return null;
+        }
+        Project project = new Project();
+        project.setId(projectId);
+        return project;
+    }
+    
+    static Task taskReference(Long taskId) {
+        if (taskId == null) {
+            return null;
+        }
+        Task task = new Task();
+        task.setId(taskId);
+        return task;
+    }
+}
@@ -0,0 +1,46 @@
+package com.teamlogger.backend.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "screenshot.store", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryScreenshotStore implements ScreenshotStore {
+    
+    private final Cloudinary cloudinary;
+    
+    public CloudinaryScreenshotStore(@Value("${cloudinary.cloud-name}") String cloudName,
+                                     @Value("${cloudinary.api-key}") String apiKey,
+                                     @Value("${cloudinary.api-secret}") String apiSecret) {
+        this.cloudinary = new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", cloudName,
+                "api_key", apiKey,
+                "api_secret", apiSecret,
+                "secure", true
+        ));
+    }
+    
+    @Override
+    public StoredScreenshot store(byte[] pngData, String publicId) throws Exception {
+        Map<?, ?> uploadResult = cloudinary.uploader().upload(
+                pngData,
+                ObjectUtils.asMap(
+                        "public_id", publicId,
+                        "folder", "teamlogger/screenshots",
+                        "resource_type", "image"
+                )
+        );
+        
+        return new StoredScreenshot((String) uploadResult.get("secure_url"), (String) uploadResult.get("public_id"));
+    }
+    
+    @Override
+    public void delete(String publicId) throws Exception {
+        cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+    }
+}
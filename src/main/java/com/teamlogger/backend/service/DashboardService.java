@@ -2,23 +2,40 @@ package com.teamlogger.backend.service;
 
 import com.teamlogger.backend.dto.DashboardStatsDto;
 import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.metrics.StatementCountInspector;
 import com.teamlogger.backend.repository.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class DashboardService {
     
+    private static final int DEFAULT_TEAM_PAGE_SIZE = 50;
+    private static final int MAX_TEAM_PAGE_SIZE = 500;
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private TimeEntryRepository timeEntryRepository;
+    private TimeEntryArchiveService timeEntryArchiveService;
     
     @Autowired
     private ProjectRepository projectRepository;
@@ -29,127 +46,207 @@ public class DashboardService {
     @Autowired
     private ScreenshotRepository screenshotRepository;
     
+    @Autowired
+    private TimeRollupService timeRollupService;
+    
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private StatementCountInspector statementCountInspector;
+    
+    // Groups running at once across every request, kept well below spring.datasource.hikari.maximum-pool-size so
+    // a burst of dashboard loads cannot take the connections punch-ins and uploads need
+    @Value("${dashboard.query-concurrency:4}")
+    private int queryConcurrency;
+    
+    // The dashboard queries are independent and mostly wait on the database, so each group gets a virtual thread
+    private final ExecutorService queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    private Semaphore queryPermits;
+    
+    @PostConstruct
+    public void init() {
+        queryPermits = new Semaphore(queryConcurrency);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        queryExecutor.shutdown();
+        queryExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    // Groups run concurrently, so latency follows the slowest group rather than the sum; each group holds at
+    // most one pooled connection, and only while it has a query permit
     public DashboardStatsDto getDashboardStats(Long userId) {
         DashboardStatsDto stats = new DashboardStatsDto();
         
-        // User statistics
-        stats.setTotalUsers(userRepository.count());
-        stats.setActiveUsers(userRepository.countByIsActive(true));
-        stats.setOnlineUsers(userRepository.countOnlineUsers());
-        
-        // Time tracking statistics for current week
         LocalDate startOfWeek = LocalDate.now().minusDays(7);
         LocalDate endOfWeek = LocalDate.now();
         
-        Double totalHoursThisWeek = timeEntryRepository.calculateTotalHoursForUserInDateRange(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.setTotalHoursThisWeek(totalHoursThisWeek != null ? totalHoursThisWeek : 0.0);
-        
-        Double overtimeHours = timeEntryRepository.calculateTotalOvertimeForUserInDateRange(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.setOvertimeHours(overtimeHours != null ? overtimeHours : 0.0);
-        
-        // Project statistics
-        stats.setTotalProjects(projectRepository.count());
-        stats.setActiveProjects(projectRepository.countByStatus(com.teamlogger.backend.entity.Project.ProjectStatus.ACTIVE));
-        stats.setCompletedProjects(projectRepository.countByStatus(com.teamlogger.backend.entity.Project.ProjectStatus.COMPLETED));
-        
-        Double avgProgress = projectRepository.calculateAverageProjectProgress();
-        stats.setAverageProjectProgress(avgProgress != null ? avgProgress : 0.0);
-        
-        // Task statistics
-        stats.setTotalTasks(taskRepository.count());
-        stats.setCompletedTasks(taskRepository.countByStatus(com.teamlogger.backend.entity.Task.TaskStatus.COMPLETED));
-        stats.setInProgressTasks(taskRepository.countByStatus(com.teamlogger.backend.entity.Task.TaskStatus.IN_PROGRESS));
-        stats.setOverdueTasks(taskRepository.findOverdueTasks(LocalDateTime.now()).size());
-        
-        // Calculate task completion rate
-        long totalTasks = taskRepository.count();
-        long completedTasks = taskRepository.countByStatus(com.teamlogger.backend.entity.Task.TaskStatus.COMPLETED);
-        stats.setTaskCompletionRate(totalTasks > 0 ? (double) completedTasks / totalTasks * 100 : 0.0);
-        
-        // Recent activities
-        stats.setRecentActivities(getRecentActivities(userId));
-        
-        // Alerts
-        stats.setAlerts(getAlerts(userId));
+        join(
+                // User statistics
+                fork(() -> {
+                    stats.setTotalUsers(userRepository.count());
+                    stats.setActiveUsers(userRepository.countByIsActive(true));
+                    stats.setOnlineUsers(presenceService.getOnlineCount());
+                }),
+                // Time tracking statistics for current week
+                fork(() -> {
+                    stats.setTotalHoursThisWeek(timeRollupService.getTotalHours(userId, startOfWeek, endOfWeek));
+                    stats.setOvertimeHours(timeRollupService.getOvertimeHours(userId, startOfWeek, endOfWeek));
+                }),
+                // Project statistics
+                fork(() -> {
+                    stats.setTotalProjects(projectRepository.count());
+                    stats.setActiveProjects(projectRepository.countByStatus(com.teamlogger.backend.entity.Project.ProjectStatus.ACTIVE));
+                    stats.setCompletedProjects(projectRepository.countByStatus(com.teamlogger.backend.entity.Project.ProjectStatus.COMPLETED));
+                    
+                    Double avgProgress = projectRepository.calculateAverageProjectProgress();
+                    stats.setAverageProjectProgress(avgProgress != null ? avgProgress : 0.0);
+                }),
+                // Task statistics
+                fork(() -> {
+                    long totalTasks = taskRepository.count();
+                    long completedTasks = taskRepository.countByStatus(com.teamlogger.backend.entity.Task.TaskStatus.COMPLETED);
+                    stats.setTotalTasks(totalTasks);
+                    stats.setCompletedTasks(completedTasks);
+                    stats.setInProgressTasks(taskRepository.countByStatus(com.teamlogger.backend.entity.Task.TaskStatus.IN_PROGRESS));
+                    stats.setOverdueTasks(taskRepository.countOverdueTasks(LocalDateTime.now()));
+                    stats.setTaskCompletionRate(totalTasks > 0 ? (double) completedTasks / totalTasks * 100 : 0.0);
+                }),
+                // Recent activities
+                fork(() -> stats.setRecentActivities(getRecentActivities(userId))),
+                // Alerts
+                fork(() -> stats.setAlerts(getAlerts(userId))));
         
         return stats;
     }
     
     public Map<String, Object> getUserStats(Long userId) {
-        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> stats = new ConcurrentHashMap<>();
         
         LocalDate startOfWeek = LocalDate.now().minusDays(7);
         LocalDate endOfWeek = LocalDate.now();
         
-        // Weekly hours
-        Double weeklyHours = timeEntryRepository.calculateTotalHoursForUserInDateRange(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.put("weeklyHours", weeklyHours != null ? weeklyHours : 0.0);
-        
-        // Monthly hours
-        LocalDate startOfMonth = LocalDate.now().minusDays(30);
-        Double monthlyHours = timeEntryRepository.calculateTotalHoursForUserInDateRange(
-                userId, startOfMonth.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.put("monthlyHours", monthlyHours != null ? monthlyHours : 0.0);
-        
-        // Overtime
-        Double overtime = timeEntryRepository.calculateTotalOvertimeForUserInDateRange(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.put("overtimeHours", overtime != null ? overtime : 0.0);
-        
-        // Average hours per day
-        Double avgHoursPerDay = timeEntryRepository.calculateAverageHoursPerDay(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.put("averageHoursPerDay", avgHoursPerDay != null ? avgHoursPerDay : 0.0);
-        
-        // Active tasks
-        long activeTasks = taskRepository.countByUserAndStatus(userId, com.teamlogger.backend.entity.Task.TaskStatus.IN_PROGRESS);
-        stats.put("activeTasks", activeTasks);
-        
-        // Completed tasks this week
-        long completedTasksThisWeek = taskRepository.countCompletedTasksByUserInDateRange(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-        stats.put("completedTasksThisWeek", completedTasksThisWeek);
+        join(
+                // Weekly and monthly hours, overtime and average hours per day
+                fork(() -> {
+                    stats.put("weeklyHours", timeRollupService.getTotalHours(userId, startOfWeek, endOfWeek));
+                    LocalDate startOfMonth = LocalDate.now().minusDays(30);
+                    stats.put("monthlyHours", timeRollupService.getTotalHours(userId, startOfMonth, endOfWeek));
+                    stats.put("overtimeHours", timeRollupService.getOvertimeHours(userId, startOfWeek, endOfWeek));
+                    stats.put("averageHoursPerDay", timeRollupService.getAverageHoursPerEntry(userId, startOfWeek, endOfWeek));
+                }),
+                // Active tasks
+                fork(() -> stats.put("activeTasks",
+                        taskRepository.countByUserAndStatus(userId, com.teamlogger.backend.entity.Task.TaskStatus.IN_PROGRESS))),
+                // Completed tasks this week
+                fork(() -> stats.put("completedTasksThisWeek", taskRepository.countCompletedTasksByUserInDateRange(
+                        userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59)))));
         
         return stats;
     }
     
     public Map<String, Object> getTeamStats(Long userId) {
+        return getTeamStats(userId, 0, DEFAULT_TEAM_PAGE_SIZE, "hours", "desc");
+    }
+    
+    public Map<String, Object> getTeamStats(Long userId, int page, int size, String sortBy, String direction) {
         Map<String, Object> stats = new HashMap<>();
         
         // Get all active users
         List<User> activeUsers = userRepository.findByIsActive(true);
         stats.put("totalTeamMembers", activeUsers.size());
-        stats.put("onlineTeamMembers", activeUsers.stream().filter(User::isOnline).count());
+        stats.put("onlineTeamMembers", activeUsers.stream().filter(user -> presenceService.isOnline(user.getId())).count());
         
-        // Team productivity
+        // Team productivity, one grouped query for every member
         LocalDate startOfWeek = LocalDate.now().minusDays(7);
         LocalDate endOfWeek = LocalDate.now();
-        
-        Map<String, Double> productivityByUser = new HashMap<>();
-        for (User user : activeUsers) {
-            Double userHours = timeEntryRepository.calculateTotalHoursForUserInDateRange(
-                    user.getId(), startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-            productivityByUser.put(user.getFullName(), userHours != null ? userHours : 0.0);
+        Map<Long, Double> hoursByUser = timeRollupService.getHoursByUser(startOfWeek, endOfWeek);
+        
+        List<TeamMemberHours> members = activeUsers.stream()
+                .map(user -> new TeamMemberHours(user.getId(), user.getFullName(), presenceService.isOnline(user.getId()),
+                        hoursByUser.getOrDefault(user.getId(), 0.0)))
+                .sorted(teamMemberComparator(sortBy, direction))
+                .collect(Collectors.toList());
+        
+        // Team metrics
+        DoubleSummaryStatistics summary = members.stream()
+                .mapToDouble(TeamMemberHours::hours)
+                .summaryStatistics();
+        stats.put("teamTotalHours", summary.getSum());
+        stats.put("teamAverageHours", summary.getCount() > 0 ? summary.getAverage() : 0.0);
+        stats.put("teamMaxHours", summary.getCount() > 0 ? summary.getMax() : 0.0);
+        stats.put("teamMinHours", summary.getCount() > 0 ? summary.getMin() : 0.0);
+        stats.put("teamMedianHours", median(members));
+        stats.put("membersWithoutHours", members.stream().filter(member -> member.hours() == 0.0).count());
+        
+        // Paged member breakdown
+        int pageSize = Math.max(1, Math.min(size, MAX_TEAM_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        int fromIndex = (int) Math.min((long) pageNumber * pageSize, members.size());
+        int toIndex = Math.min(fromIndex + pageSize, members.size());
+        List<TeamMemberHours> pageMembers = members.subList(fromIndex, toIndex);
+        
+        Map<String, Double> productivityByUser = new LinkedHashMap<>();
+        for (TeamMemberHours member : pageMembers) {
+            productivityByUser.put(member.name(), member.hours());
         }
         stats.put("productivityByUser", productivityByUser);
-        
-        // Team average hours
-        Double teamTotalHours = activeUsers.stream()
-                .mapToDouble(user -> {
-                    Double hours = timeEntryRepository.calculateTotalHoursForUserInDateRange(
-                            user.getId(), startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
-                    return hours != null ? hours : 0.0;
-                })
-                .sum();
-        stats.put("teamTotalHours", teamTotalHours);
-        stats.put("teamAverageHours", activeUsers.size() > 0 ? teamTotalHours / activeUsers.size() : 0.0);
+        stats.put("members", pageMembers);
+        stats.put("page", pageNumber);
+        stats.put("size", pageSize);
+        stats.put("totalPages", (members.size() + pageSize - 1) / pageSize);
         
         return stats;
     }
     
+    private CompletableFuture<Void> fork(Runnable queries) {
+        return CompletableFuture.supplyAsync(statementCountInspector.propagate(() -> {
+            // A virtual thread waiting here holds neither a carrier thread nor a connection
+            queryPermits.acquireUninterruptibly();
+            try {
+                queries.run();
+            } finally {
+                queryPermits.release();
+            }
+            return null;
+        }), queryExecutor);
+    }
+    
+    // Waits for every group and rethrows the first failure as the sequential code would have thrown it
+    private static void join(CompletableFuture<?>... groups) {
+        try {
+            CompletableFuture.allOf(groups).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private Comparator<TeamMemberHours> teamMemberComparator(String sortBy, String direction) {
+        Comparator<TeamMemberHours> comparator = "name".equalsIgnoreCase(sortBy)
+                ? Comparator.comparing(TeamMemberHours::name, String.CASE_INSENSITIVE_ORDER)
+                : Comparator.comparingDouble(TeamMemberHours::hours);
+        comparator = comparator.thenComparing(TeamMemberHours::userId);
+        return "asc".equalsIgnoreCase(direction) ? comparator : comparator.reversed();
+    }
+    
+    private double median(List<TeamMemberHours> members) {
+        if (members.isEmpty()) {
+            return 0.0;
+        }
+        double[] hours = members.stream().mapToDouble(TeamMemberHours::hours).sorted().toArray();
+        int middle = hours.length / 2;
+        return hours.length % 2 == 0 ? (hours[middle - 1] + hours[middle]) / 2 : hours[middle];
+    }
+    
+    public record TeamMemberHours(Long userId, String name, boolean online, double hours) {
+    }
+    
     public Map<String, Object> getProjectStats(Long userId) {
         Map<String, Object> stats = new HashMap<>();
         
@@ -180,7 +277,7 @@ public class DashboardService {
         // Get recent time entries
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         List<com.teamlogger.backend.entity.TimeEntry> recentTimeEntries = 
-                timeEntryRepository.findRecentTimeEntries(userId, startDate, LocalDateTime.now());
+                timeEntryArchiveService.findRecentTimeEntries(userId, startDate, LocalDateTime.now());
         
         for (com.teamlogger.backend.entity.TimeEntry entry : recentTimeEntries) {
             DashboardStatsDto.RecentActivityDto activity = new DashboardStatsDto.RecentActivityDto();
@@ -203,15 +300,14 @@ public class DashboardService {
         // Check for overtime
         LocalDate startOfWeek = LocalDate.now().minusDays(7);
         LocalDate endOfWeek = LocalDate.now();
-        Double overtime = timeEntryRepository.calculateTotalOvertimeForUserInDateRange(
-                userId, startOfWeek.atStartOfDay(), endOfWeek.atTime(23, 59, 59));
+        Double overtime = timeRollupService.getOvertimeHours(userId, startOfWeek, endOfWeek);
         
-        if (overtime != null && overtime > 5.0) {
+        if (overtime > 5.0) {
             alerts.add("You have worked " + overtime + " hours of overtime this week");
         }
         
         // Check for overdue tasks
-        long overdueTasks = taskRepository.findOverdueTasksByUser(userId, LocalDateTime.now()).size();
+        long overdueTasks = taskRepository.countOverdueTasksByUser(userId, LocalDateTime.now());
         if (overdueTasks > 0) {
             alerts.add("You have " + overdueTasks + " overdue tasks");
         }
@@ -220,41 +316,85 @@ public class DashboardService {
     }
     
     public Map<String, Object> getProductivityChart(Long userId, String period) {
+        return getProductivityChart(userId, period, null);
+    }
+    
+    public Map<String, Object> getProductivityChart(Long userId, String period, String granularity) {
         Map<String, Object> chartData = new HashMap<>();
         List<DashboardStatsDto.ChartDataPoint> dataPoints = new ArrayList<>();
         
         LocalDate endDate = LocalDate.now();
         LocalDate startDate;
+        String defaultGranularity;
         
         switch (period.toLowerCase()) {
-            case "week":
-                startDate = endDate.minusDays(7);
-                break;
             case "month":
                 startDate = endDate.minusDays(30);
+                defaultGranularity = "day";
                 break;
+            case "quarter":
+                startDate = endDate.minusMonths(3);
+                defaultGranularity = "week";
+                break;
+            case "year":
+                startDate = endDate.minusYears(1);
+                defaultGranularity = "month";
+                break;
+            case "week":
             default:
                 startDate = endDate.minusDays(7);
+                defaultGranularity = "day";
+        }
+        
+        String bucket = granularity != null ? granularity.toLowerCase() : defaultGranularity;
+        if (!bucket.equals("day") && !bucket.equals("week") && !bucket.equals("month")) {
+            throw new RuntimeException("Unsupported granularity: " + granularity);
         }
         
-        // Generate data points for each day
+        // One grouped query for the whole period, bucketed here
+        Map<LocalDate, Double> dailyHours = timeRollupService.getDailyHours(userId, startDate, endDate);
+        
+        Map<LocalDate, Double> bucketedHours = new TreeMap<>();
         LocalDate currentDate = startDate;
         while (!currentDate.isAfter(endDate)) {
+            bucketedHours.merge(bucketStart(currentDate, bucket), dailyHours.getOrDefault(currentDate, 0.0), Double::sum);
+            currentDate = currentDate.plusDays(1);
+        }
+        
+        for (Map.Entry<LocalDate, Double> entry : bucketedHours.entrySet()) {
             DashboardStatsDto.ChartDataPoint point = new DashboardStatsDto.ChartDataPoint();
-            point.setLabel(currentDate.toString());
-            point.setDate(currentDate.toString());
-            
-            Double hours = timeEntryRepository.calculateTotalHoursForUserInDateRange(
-                    userId, currentDate.atStartOfDay(), currentDate.atTime(23, 59, 59));
-            point.setValue(hours != null ? hours : 0.0);
-            
+            point.setLabel(bucketLabel(entry.getKey(), bucket));
+            point.setDate(entry.getKey().toString());
+            point.setValue(entry.getValue());
             dataPoints.add(point);
-            currentDate = currentDate.plusDays(1);
         }
         
         chartData.put("dataPoints", dataPoints);
         chartData.put("period", period);
+        chartData.put("granularity", bucket);
         
         return chartData;
     }
+    
+    private LocalDate bucketStart(LocalDate date, String bucket) {
+        switch (bucket) {
+            case "week":
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month":
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+    
+    private String bucketLabel(LocalDate bucketStart, String bucket) {
+        switch (bucket) {
+            case "week":
+                return "Week of " + bucketStart;
+            case "month":
+                return YearMonth.from(bucketStart).toString();
+            default:
+                return bucketStart.toString();
+        }
+    }
 } 
\ No newline at end of file
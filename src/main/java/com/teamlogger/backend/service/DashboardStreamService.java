@@ -0,0 +1,230 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.Task;
+import com.teamlogger.backend.repository.DailyTimeRollupRepository;
+import com.teamlogger.backend.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pushes dashboard figures to connected clients. A subscriber gets one "snapshot" event with every figure, then
+// "delta" events holding only the figures that changed, each with its new value. A figure that does not change again
+// is not resent, so deltas must not be lost: each connection buffers them, and one that falls too far behind is
+// closed so the client reconnects and starts from a fresh snapshot. Changes are marked as they happen and sent on
+// each flush, so a burst costs one recomputation.
+@Service
+public class DashboardStreamService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStreamService.class);
+    
+    @Autowired
+    private DailyTimeRollupRepository rollupRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Value("${dashboard.stream.keepalive-interval:30000}")
+    private long keepaliveInterval;
+    
+    // Overdue counts change as due dates pass, not only when a task is saved
+    @Value("${dashboard.stream.task-refresh-interval:60000}")
+    private long taskRefreshInterval;
+    
+    // Deltas held for a connection that is not keeping up, before it is closed
+    @Value("${dashboard.stream.buffer-size:256}")
+    private int bufferSize;
+    
+    // Figures shared by every subscriber: online users and task counts
+    private final Sinks.Many<Map<String, Object>> sharedDeltas = Sinks.many().multicast().directBestEffort();
+    
+    private volatile Map<String, Object> sharedFigures = Map.of();
+    
+    private final AtomicBoolean tasksChanged = new AtomicBoolean(true);
+    
+    private volatile long tasksComputedAt;
+    
+    // userId -> the subscriber's own hours, for users with at least one open stream
+    private final ConcurrentHashMap<Long, UserStream> userStreams = new ConcurrentHashMap<>();
+    
+    private final Set<Long> changedUsers = ConcurrentHashMap.newKeySet();
+    
+    // Sinks must not be emitted to from two threads at once
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    // Deferred, so a connection is counted and listening only once the response subscribes
+    public Flux<ServerSentEvent<Map<String, Object>>> subscribe(Long userId) {
+        return Flux.defer(() -> {
+            // Counted inside compute, so a closing connection cannot drop the stream a new one just joined
+            UserStream stream = userStreams.compute(userId, (id, current) -> {
+                UserStream joined = current != null ? current : new UserStream();
+                joined.connections++;
+                return joined;
+            });
+            
+            // The connection's own queue takes every delta, so the sinks always see demand; one that falls
+            // bufferSize deltas behind is failed, and the client reconnects for a fresh snapshot
+            Sinks.Many<Map<String, Object>> pending = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<Map<String, Object>>get(bufferSize).get());
+            Disposable listening;
+            Map<String, Object> snapshot;
+            // Listening starts with no flush between it and the snapshot, so each later change arrives as a delta
+            flushLock.lock();
+            try {
+                if (stream.figures.isEmpty()) {
+                    stream.figures = computeUserFigures(userId);
+                }
+                if (sharedFigures.isEmpty()) {
+                    flush();
+                }
+                listening = Flux.merge(sharedDeltas.asFlux(), stream.deltas.asFlux()).subscribe(delta -> {
+                    if (pending.tryEmitNext(delta).isFailure()) {
+                        pending.tryEmitError(new IllegalStateException("Dashboard stream fell " + bufferSize + " deltas behind"));
+                    }
+                });
+                snapshot = new LinkedHashMap<>(sharedFigures);
+                snapshot.putAll(stream.figures);
+            } catch (RuntimeException e) {
+                release(userId);
+                throw e;
+            } finally {
+                flushLock.unlock();
+            }
+            
+            Flux<ServerSentEvent<Map<String, Object>>> deltas = pending.asFlux()
+                    .map(delta -> ServerSentEvent.builder(delta).event("delta").build());
+            // Comments keep proxies from closing an idle connection
+            Flux<ServerSentEvent<Map<String, Object>>> keepalive = Flux.interval(Duration.ofMillis(keepaliveInterval))
+                    .map(tick -> ServerSentEvent.<Map<String, Object>>builder().comment("keepalive").build());
+            
+            return Flux.concat(Flux.just(ServerSentEvent.builder(snapshot).event("snapshot").build()),
+                            Flux.merge(deltas, keepalive))
+                    .doFinally(signal -> {
+                        listening.dispose();
+                        release(userId);
+                    });
+        });
+    }
+    
+    // Called wherever rollup hours change for the user
+    public void timeEntriesChanged(Long userId) {
+        if (userStreams.containsKey(userId)) {
+            changedUsers.add(userId);
+        }
+    }
+    
+    public void tasksChanged() {
+        tasksChanged.set(true);
+    }
+    
+    public int getSubscriberCount() {
+        return userStreams.values().stream().mapToInt(stream -> stream.connections).sum();
+    }
+    
+    @Scheduled(fixedDelayString = "${dashboard.stream.flush-interval:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushSharedFigures();
+            for (Long userId : changedUsers) {
+                changedUsers.remove(userId);
+                UserStream stream = userStreams.get(userId);
+                if (stream != null) {
+                    Map<String, Object> figures = computeUserFigures(userId);
+                    emit(stream.deltas, diff(stream.figures, figures));
+                    stream.figures = figures;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not push dashboard changes: {}", e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    private void flushSharedFigures() {
+        Map<String, Object> figures = new LinkedHashMap<>(sharedFigures);
+        figures.put("onlineUsers", presenceService.getOnlineCount());
+        
+        long now = System.currentTimeMillis();
+        if (tasksChanged.getAndSet(false) || now - tasksComputedAt >= taskRefreshInterval) {
+            long totalTasks = taskRepository.count();
+            long completedTasks = taskRepository.countByStatus(Task.TaskStatus.COMPLETED);
+            figures.put("totalTasks", totalTasks);
+            figures.put("completedTasks", completedTasks);
+            figures.put("inProgressTasks", taskRepository.countByStatus(Task.TaskStatus.IN_PROGRESS));
+            figures.put("overdueTasks", taskRepository.countOverdueTasks(LocalDateTime.now()));
+            figures.put("taskCompletionRate", totalTasks > 0 ? (double) completedTasks / totalTasks * 100 : 0.0);
+            tasksComputedAt = now;
+        }
+        
+        Map<String, Object> delta = diff(sharedFigures, figures);
+        sharedFigures = figures;
+        emit(sharedDeltas, delta);
+    }
+    
+    // Same window as DashboardService.getDashboardStats
+    private Map<String, Object> computeUserFigures(Long userId) {
+        LocalDate endOfWeek = LocalDate.now();
+        LocalDate startOfWeek = endOfWeek.minusDays(7);
+        Double hours = rollupRepository.sumWorkHoursForUserInDateRange(userId, startOfWeek, endOfWeek);
+        Double overtime = rollupRepository.sumOvertimeForUserInDateRange(userId, startOfWeek, endOfWeek);
+        
+        Map<String, Object> figures = new LinkedHashMap<>();
+        figures.put("totalHoursThisWeek", hours != null ? hours : 0.0);
+        figures.put("overtimeHours", overtime != null ? overtime : 0.0);
+        return figures;
+    }
+    
+    private static Map<String, Object> diff(Map<String, Object> previous, Map<String, Object> current) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        current.forEach((name, value) -> {
+            if (!Objects.equals(previous.get(name), value)) {
+                delta.put(name, value);
+            }
+        });
+        return delta;
+    }
+    
+    private static void emit(Sinks.Many<Map<String, Object>> sink, Map<String, Object> delta) {
+        if (!delta.isEmpty()) {
+            // FAIL_ZERO_SUBSCRIBER is expected between connections; nobody is waiting for the delta then
+            sink.tryEmitNext(delta);
+        }
+    }
+    
+    private void release(Long userId) {
+        userStreams.computeIfPresent(userId, (id, current) -> --current.connections == 0 ? null : current);
+    }
+    
+    private static class UserStream {
+        
+        private final Sinks.Many<Map<String, Object>> deltas = Sinks.many().multicast().directBestEffort();
+        
+        private volatile Map<String, Object> figures = Map.of();
+        
+        // Only changed inside userStreams.compute
+        private volatile int connections;
+    }
+}
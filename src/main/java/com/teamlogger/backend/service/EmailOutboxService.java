@@ -0,0 +1,271 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.Notification;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.NotificationRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Persistent outbound email queue kept in the notifications table and drained in the background
+@Service
+public class EmailOutboxService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+    
+    @Autowired
+    private NotificationRepository notificationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JavaMailSender mailSender;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+    
+    @Value("${email.outbox.batch-size:200}")
+    private int batchSize;
+    
+    // Messages sent over one SMTP connection
+    @Value("${email.outbox.messages-per-connection:20}")
+    private int messagesPerConnection;
+    
+    @Value("${email.outbox.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${email.outbox.initial-backoff:60000}")
+    private long initialBackoff;
+    
+    // How long a claimed batch stays hidden from other nodes before it is retried
+    @Value("${email.outbox.claim-timeout:300000}")
+    private long claimTimeout;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final RateLimiter rateLimiter;
+    
+    // SMTP sends are blocking I/O, so one virtual thread per connection batch
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public EmailOutboxService(PlatformTransactionManager transactionManager,
+                              @Value("${email.outbox.rate-per-second:10}") double ratePerSecond) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        senders.shutdown();
+        senders.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    @Transactional
+    public Notification queue(Long userId, Notification.NotificationType type, String title, String message) {
+        Notification notification = new Notification();
+        notification.setUser(userRepository.getReferenceById(userId));
+        notification.setType(type);
+        notification.setTitle(title);
+        notification.setMessage(message);
+        notification.setEmailRequested(true);
+        return notificationRepository.save(notification);
+    }
+    
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:15000}")
+    public void dispatchPending() {
+        int claimed;
+        do {
+            List<Notification> batch = claimBatch();
+            claimed = batch.size();
+            if (claimed > 0) {
+                send(batch);
+            }
+        } while (claimed == batchSize);
+    }
+    
+    private List<Notification> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = notificationRepository.lockPendingEmails(now, maxAttempts, batchSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            notificationRepository.claimEmails(ids, now.plus(Duration.ofMillis(claimTimeout)));
+            return notificationRepository.findWithUserByIdIn(ids);
+        });
+    }
+    
+    private void send(List<Notification> batch) {
+        // Everything pending for the same recipient goes out as one message
+        Map<Long, List<Notification>> byRecipient = new LinkedHashMap<>();
+        for (Notification notification : batch) {
+            byRecipient.computeIfAbsent(notification.getUser().getId(), userId -> new ArrayList<>()).add(notification);
+        }
+        
+        List<OutgoingEmail> emails = new ArrayList<>();
+        for (List<Notification> notifications : byRecipient.values()) {
+            emails.add(new OutgoingEmail(compose(notifications.get(0).getUser(), notifications), notifications));
+        }
+        
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < emails.size(); i += messagesPerConnection) {
+            List<OutgoingEmail> chunk = emails.subList(i, Math.min(i + messagesPerConnection, emails.size()));
+            results.add(senders.submit((Callable<Void>) () -> {
+                sendChunk(chunk);
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.error("Email dispatch worker failed", e.getCause());
+            }
+        }
+    }
+    
+    private void sendChunk(List<OutgoingEmail> chunk) throws InterruptedException {
+        rateLimiter.acquire(chunk.size());
+        
+        SimpleMailMessage[] messages = chunk.stream().map(OutgoingEmail::message).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failures = Map.of();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // A multi-message send reuses one SMTP connection for the whole chunk
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                failures = new LinkedHashMap<>();
+                for (SimpleMailMessage message : messages) {
+                    failures.put(message, e);
+                }
+            }
+        } catch (Exception e) {
+            failures = new LinkedHashMap<>();
+            for (SimpleMailMessage message : messages) {
+                failures.put(message, e);
+            }
+        }
+        // One sample per connection, so this is the latency of the whole chunk
+        sample.stop(meterRegistry.timer("email.send", "delivery", "outbox",
+                "outcome", failures.isEmpty() ? "success" : "failure"));
+        
+        List<Long> sentIds = new ArrayList<>();
+        for (OutgoingEmail email : chunk) {
+            Exception failure = failures.get(email.message());
+            if (failure == null) {
+                email.notifications().forEach(notification -> sentIds.add(notification.getId()));
+            } else {
+                recordFailure(email, failure);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    notificationRepository.markEmailsSent(sentIds, LocalDateTime.now()));
+        }
+    }
+    
+    private void recordFailure(OutgoingEmail email, Exception failure) {
+        int attempts = email.notifications().stream()
+                .mapToInt(notification -> notification.getEmailAttempts() != null ? notification.getEmailAttempts() : 0)
+                .max()
+                .orElse(0);
+        long backoff = initialBackoff * (1L << Math.min(attempts, 16));
+        List<Long> ids = email.notifications().stream().map(Notification::getId).toList();
+        logger.warn("Email to user {} failed (attempt {}/{}): {}",
+                email.notifications().get(0).getUser().getId(), attempts + 1, maxAttempts, failure.getMessage());
+        transactionTemplate.executeWithoutResult(status -> notificationRepository.markEmailsFailed(ids,
+                LocalDateTime.now().plus(Duration.ofMillis(backoff)), failure.getMessage()));
+    }
+    
+    private SimpleMailMessage compose(User user, List<Notification> notifications) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(user.getEmail());
+        
+        StringBuilder text = new StringBuilder("Hello ").append(user.getFullName()).append(",\n\n");
+        if (notifications.size() == 1) {
+            Notification notification = notifications.get(0);
+            message.setSubject(notification.getTitle());
+            text.append(notification.getMessage());
+        } else {
+            message.setSubject("Team Logger - " + notifications.size() + " new notifications");
+            text.append("Here is what happened since your last update:\n");
+            for (Notification notification : notifications) {
+                text.append("\n- ").append(notification.getTitle()).append("\n  ")
+                        .append(notification.getMessage().replace("\n", "\n  ")).append("\n");
+            }
+        }
+        text.append("\n\nBest regards,\nTeam Logger Team");
+        message.setText(text.toString());
+        return message;
+    }
+    
+    private record OutgoingEmail(SimpleMailMessage message, List<Notification> notifications) {
+    }
+    
+    // Spaces sends evenly to stay under the SMTP provider's rate limit
+    private static class RateLimiter {
+        
+        private final long intervalNanos;
+        
+        // ReentrantLock rather than synchronized, so waiting virtual threads do not pin their carriers
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private long nextFreeSlot = System.nanoTime();
+        
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+        
+        void acquire(int permits) throws InterruptedException {
+            long waitNanos;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                waitNanos = Math.max(0, nextFreeSlot - now);
+                nextFreeSlot = Math.max(now, nextFreeSlot) + permits * intervalNanos;
+            } finally {
+                lock.unlock();
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
\ No newline at end of file
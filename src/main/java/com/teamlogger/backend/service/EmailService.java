@@ -1,5 +1,9 @@
 package com.teamlogger.backend.service;
 
+import com.teamlogger.backend.entity.Notification;
+import com.teamlogger.backend.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
@@ -14,6 +18,12 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
     
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Value("${spring.mail.username}")
     private String fromEmail;
     
@@ -27,7 +37,7 @@ public class EmailService {
                 "This token will expire in 24 hours.\n\n" +
                 "If you did not request this password reset, please ignore this email.");
         
-        mailSender.send(message);
+        send(message);
     }
     
     public void sendPasswordResetEmail(String toEmail, String fullName, String newPassword) {
@@ -41,109 +51,61 @@ public class EmailService {
                 "Please change your password after logging in.\n\n" +
                 "Best regards,\nTeam Logger Team");
         
-        mailSender.send(message);
+        send(message);
     }
     
-    public void sendWelcomeEmail(String toEmail, String fullName, String username) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Welcome to Team Logger");
-        message.setText("Hello " + fullName + ",\n\n" +
+    // Messages to registered users go through the outbox; greeting and sign-off are added when they are sent
+    public void sendWelcomeEmail(User user) {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.SUCCESS, "Welcome to Team Logger",
                 "Welcome to Team Logger! Your account has been successfully created.\n\n" +
-                "Username: " + username + "\n\n" +
-                "You can now log in to your account and start tracking your time.\n\n" +
-                "Best regards,\nTeam Logger Team");
-        
-        mailSender.send(message);
+                "Username: " + user.getUsername() + "\n\n" +
+                "You can now log in to your account and start tracking your time.");
     }
     
-    public void sendTimeEntryApprovalEmail(String toEmail, String approverName, String date) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Time Entry Approved");
-        message.setText("Your time entry for " + date + " has been approved by " + approverName + ".\n\n" +
+    public void sendTimeEntryApprovalEmail(User user, String approverName, String date) {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.SUCCESS, "Time Entry Approved",
+                "Your time entry for " + date + " has been approved by " + approverName + ".\n\n" +
                 "Thank you for using Team Logger!");
-        
-        mailSender.send(message);
     }
     
-    public void sendTimeEntryRejectionEmail(String toEmail, String approverName, String date, String reason) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Time Entry Requires Attention");
-        message.setText("Your time entry for " + date + " requires attention.\n\n" +
+    public void sendTimeEntryRejectionEmail(User user, String approverName, String date, String reason) {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.WARNING, "Time Entry Requires Attention",
+                "Your time entry for " + date + " requires attention.\n\n" +
                 "Approver: " + approverName + "\n" +
                 "Reason: " + reason + "\n\n" +
                 "Please review and update your time entry accordingly.");
-        
-        mailSender.send(message);
     }
     
-    public void sendWeeklyReportEmail(String toEmail, String userName, String reportContent) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Weekly Time Report - " + userName);
-        message.setText("Weekly Time Report for " + userName + "\n\n" + reportContent);
-        
-        mailSender.send(message);
+    public void sendWeeklyReportEmail(User user, String reportContent) {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.INFO,
+                "Weekly Time Report - " + user.getFullName(),
+                "Weekly Time Report for " + user.getFullName() + "\n\n" + reportContent);
     }
     
-    public void sendProjectAssignmentEmail(String toEmail, String userName, String projectName, String managerName) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("New Project Assignment");
-        message.setText("Hello " + userName + ",\n\n" +
+    public void sendProjectAssignmentEmail(User member, String projectName, String managerName) {
+        emailOutboxService.queue(member.getId(), Notification.NotificationType.INFO, "New Project Assignment",
                 "You have been assigned to the project: " + projectName + "\n" +
                 "Project Manager: " + managerName + "\n\n" +
-                "Please log in to Team Logger to view project details and start tracking your time.\n\n" +
-                "Best regards,\nTeam Logger Team");
-        
-        mailSender.send(message);
+                "Please log in to Team Logger to view project details and start tracking your time.");
     }
     
-    public void sendTaskAssignmentEmail(String toEmail, String userName, String taskTitle, String projectName) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("New Task Assignment");
-        message.setText("Hello " + userName + ",\n\n" +
+    public void sendTaskAssignmentEmail(User assignee, String taskTitle, String projectName) {
+        emailOutboxService.queue(assignee.getId(), Notification.NotificationType.INFO, "New Task Assignment",
                 "You have been assigned a new task: " + taskTitle + "\n" +
                 "Project: " + projectName + "\n\n" +
-                "Please log in to Team Logger to view task details and update your progress.\n\n" +
-                "Best regards,\nTeam Logger Team");
-        
-        mailSender.send(message);
+                "Please log in to Team Logger to view task details and update your progress.");
     }
     
-    public void sendOvertimeAlertEmail(String toEmail, String userName, Double overtimeHours) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Overtime Alert");
-        message.setText("Hello " + userName + ",\n\n" +
+    public void sendOvertimeAlertEmail(User user, Double overtimeHours) {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.WARNING, "Overtime Alert",
                 "You have worked " + overtimeHours + " hours of overtime this week.\n\n" +
-                "Please ensure this is necessary and approved by your manager.\n\n" +
-                "Best regards,\nTeam Logger Team");
-        
-        mailSender.send(message);
+                "Please ensure this is necessary and approved by your manager.");
     }
     
-    public void sendIdleTimeAlertEmail(String toEmail, String userName, Long idleMinutes) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Idle Time Alert");
-        message.setText("Hello " + userName + ",\n\n" +
+    public void sendIdleTimeAlertEmail(User user, Long idleMinutes) {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.REMINDER, "Idle Time Alert",
                 "You have been idle for " + idleMinutes + " minutes.\n\n" +
-                "Please ensure you are actively working or take a break if needed.\n\n" +
-                "Best regards,\nTeam Logger Team");
-        
-        mailSender.send(message);
+                "Please ensure you are actively working or take a break if needed.");
     }
     
     public void sendTimesheetReport(String toEmail, LocalDate startDate, LocalDate endDate, byte[] reportData, String filename) {
@@ -154,7 +116,19 @@ public class EmailService {
         message.setText("Please find attached your timesheet report for the period " + startDate + " to " + endDate + ".\n\n" +
                 "Best regards,\nTeam Logger Team");
         
-        mailSender.send(message);
+        send(message);
         // Note: For actual file attachment, you would need to use JavaMailSender with MimeMessage
     }
+    
+    // Direct sends share the email.send timer with the outbox, tagged by delivery path
+    private void send(SimpleMailMessage message) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            mailSender.send(message);
+            outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("email.send", "delivery", "direct", "outcome", outcome));
+        }
+    }
 } 
\ No newline at end of file
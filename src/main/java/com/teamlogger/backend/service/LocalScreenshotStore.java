@@ -0,0 +1,41 @@
+package com.teamlogger.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Component
+@ConditionalOnProperty(name = "screenshot.store", havingValue = "local")
+public class LocalScreenshotStore implements ScreenshotStore {
+    
+    private final Path directory;
+    
+    public LocalScreenshotStore(@Value("${screenshot.local-dir:screenshots}") String directory) {
+        this.directory = Paths.get(directory).toAbsolutePath();
+    }
+    
+    @Override
+    public StoredScreenshot store(byte[] pngData, String publicId) throws Exception {
+        Path file = resolve(publicId);
+        Files.createDirectories(file.getParent());
+        Files.write(file, pngData);
+        return new StoredScreenshot(file.toUri().toString(), publicId);
+    }
+    
+    @Override
+    public void delete(String publicId) throws Exception {
+        Files.deleteIfExists(resolve(publicId));
+    }
+    
+    private Path resolve(String publicId) {
+        Path file = directory.resolve(publicId + ".png").normalize();
+        if (!file.startsWith(directory)) {
+            throw new IllegalArgumentException("Invalid screenshot id: " + publicId);
+        }
+        return file;
+    }
+}
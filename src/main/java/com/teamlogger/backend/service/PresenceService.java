@@ -0,0 +1,149 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+public class PresenceService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+    
+    private static final int WRITE_BATCH_SIZE = 500;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${presence.ttl:120000}")
+    private long presenceTtl;
+    
+    // userId -> last heartbeat (epoch millis)
+    private final ConcurrentHashMap<Long, Long> lastSeen = new ConcurrentHashMap<>();
+    
+    // Status changes not yet written to users.is_online
+    private final ConcurrentHashMap<Long, Boolean> pendingStatus = new ConcurrentHashMap<>();
+    
+    private final Set<Long> pendingLogins = ConcurrentHashMap.newKeySet();
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public PresenceService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    // Only the users this node saw go offline with it; other nodes keep their own users' flags
+    @PreDestroy
+    public void markLocalUsersOffline() {
+        for (Long userId : lastSeen.keySet()) {
+            markOffline(userId);
+        }
+        try {
+            flushPendingWrites();
+        } catch (Exception e) {
+            logger.warn("Could not clear online flag for this node's users: {}", e.getMessage());
+        }
+    }
+    
+    public void login(Long userId) {
+        pendingLogins.add(userId);
+        heartbeat(userId);
+    }
+    
+    public void heartbeat(Long userId) {
+        if (lastSeen.put(userId, System.currentTimeMillis()) == null) {
+            pendingStatus.put(userId, Boolean.TRUE);
+        }
+    }
+    
+    public void markOffline(Long userId) {
+        lastSeen.remove(userId);
+        pendingStatus.put(userId, Boolean.FALSE);
+    }
+    
+    public boolean isOnline(Long userId) {
+        return lastSeen.containsKey(userId);
+    }
+    
+    public long getOnlineCount() {
+        return lastSeen.size();
+    }
+    
+    public Set<Long> getOnlineUserIds() {
+        return Set.copyOf(lastSeen.keySet());
+    }
+    
+    public List<User> getOnlineMembers(Collection<User> members) {
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream()
+                .filter(member -> isOnline(member.getId()))
+                .collect(Collectors.toList());
+    }
+    
+    @Scheduled(fixedDelayString = "${presence.sweep-interval:30000}")
+    public void expireStaleSessions() {
+        long cutoff = System.currentTimeMillis() - presenceTtl;
+        for (Map.Entry<Long, Long> entry : lastSeen.entrySet()) {
+            // remove(key, value) so a heartbeat racing with the sweep wins
+            if (entry.getValue() < cutoff && lastSeen.remove(entry.getKey(), entry.getValue())) {
+                pendingStatus.put(entry.getKey(), Boolean.FALSE);
+            }
+        }
+    }
+    
+    // Pending changes are only dropped once their update has committed, so a failed flush is retried next time
+    @Scheduled(fixedDelayString = "${presence.flush-interval:10000}")
+    public void flushPendingWrites() {
+        Map<Long, Boolean> statuses = Map.copyOf(pendingStatus);
+        List<Long> online = new ArrayList<>();
+        List<Long> offline = new ArrayList<>();
+        statuses.forEach((userId, status) -> (status ? online : offline).add(userId));
+        List<Long> logins = List.copyOf(pendingLogins);
+        if (statuses.isEmpty() && logins.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (List<Long> batch : partition(online)) {
+                userRepository.updateOnlineStatus(batch, true);
+            }
+            for (List<Long> batch : partition(offline)) {
+                userRepository.updateOnlineStatus(batch, false);
+            }
+            for (List<Long> batch : partition(logins)) {
+                userRepository.updateLastLogin(batch, now);
+            }
+        });
+        
+        // remove(key, value) keeps a status that changed again while the update ran
+        statuses.forEach(pendingStatus::remove);
+        logins.forEach(pendingLogins::remove);
+    }
+    
+    private static List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += WRITE_BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(i + WRITE_BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+}
\ No newline at end of file
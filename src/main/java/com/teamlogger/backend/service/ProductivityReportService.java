@@ -0,0 +1,119 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.DailyTimeRollupRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+@Service
+public class ProductivityReportService {
+    
+    private static final String[] HEADERS = {
+            "User ID", "Username", "Name", "Total Hours", "Overtime Hours", "Entries", "Average Hours per Entry"
+    };
+    
+    @Autowired
+    private DailyTimeRollupRepository rollupRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    public Map<String, Object> getProductivityReport(LocalDate startDate, LocalDate endDate) {
+        List<UserProductivity> rows = getUserProductivity(startDate, endDate);
+        
+        double totalHours = rows.stream().mapToDouble(UserProductivity::totalHours).sum();
+        double overtimeHours = rows.stream().mapToDouble(UserProductivity::overtimeHours).sum();
+        long activeUsers = rows.stream().filter(row -> row.entryCount() > 0).count();
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalHours", totalHours);
+        summary.put("overtimeHours", overtimeHours);
+        summary.put("usersWithEntries", activeUsers);
+        summary.put("averageHoursPerUser", rows.isEmpty() ? 0.0 : totalHours / rows.size());
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startDate", startDate);
+        report.put("endDate", endDate);
+        report.put("totalUsers", rows.size());
+        report.put("userProductivity", rows);
+        report.put("summary", summary);
+        return report;
+    }
+    
+    // The listener gets a completion percentage as rows are written
+    public void writeExcel(LocalDate startDate, LocalDate endDate, OutputStream out, IntConsumer progressListener) throws IOException {
+        writeExcel(getUserProductivity(startDate, endDate), startDate, endDate, out, progressListener);
+    }
+    
+    public void writeExcel(List<UserProductivity> rows, LocalDate startDate, LocalDate endDate, OutputStream out,
+                           IntConsumer progressListener) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try {
+            Sheet sheet = workbook.createSheet("Productivity " + startDate + " to " + endDate);
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                header.createCell(i).setCellValue(HEADERS[i]);
+            }
+            
+            for (int i = 0; i < rows.size(); i++) {
+                UserProductivity productivity = rows.get(i);
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(productivity.userId());
+                row.createCell(1).setCellValue(productivity.username());
+                row.createCell(2).setCellValue(productivity.name());
+                row.createCell(3).setCellValue(productivity.totalHours());
+                row.createCell(4).setCellValue(productivity.overtimeHours());
+                row.createCell(5).setCellValue(productivity.entryCount());
+                row.createCell(6).setCellValue(productivity.averageHoursPerEntry());
+                progressListener.accept((int) ((i + 1) * 100L / rows.size()));
+            }
+            
+            workbook.write(out);
+        } finally {
+            workbook.close();
+            workbook.dispose();
+        }
+    }
+    
+    private List<UserProductivity> getUserProductivity(LocalDate startDate, LocalDate endDate) {
+        // One grouped query over the rollups instead of one per user
+        Map<Long, Object[]> totalsByUser = new HashMap<>();
+        for (Object[] row : rollupRepository.sumTotalsByUserInDateRange(startDate, endDate)) {
+            totalsByUser.put((Long) row[0], row);
+        }
+        
+        List<UserProductivity> rows = new ArrayList<>();
+        for (User user : userRepository.findByIsActive(true)) {
+            Object[] totals = totalsByUser.get(user.getId());
+            double totalHours = totals != null ? valueOf(totals[1]) : 0.0;
+            double overtimeHours = totals != null ? valueOf(totals[2]) : 0.0;
+            long entryCount = totals != null && totals[3] != null ? ((Number) totals[3]).longValue() : 0L;
+            rows.add(new UserProductivity(user.getId(), user.getUsername(),
+                    user.getFirstName() + " " + user.getLastName(), totalHours, overtimeHours, entryCount,
+                    entryCount > 0 ? totalHours / entryCount : 0.0));
+        }
+        return rows;
+    }
+    
+    private static double valueOf(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+    
+    public record UserProductivity(Long userId, String username, String name, double totalHours,
+                                   double overtimeHours, long entryCount, double averageHoursPerEntry) {
+    }
+}
\ No newline at end of file
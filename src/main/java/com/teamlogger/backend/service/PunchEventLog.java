@@ -0,0 +1,261 @@
+package com.teamlogger.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only record log in memory-mapped segment files. A position is a byte offset across all segments,
+// and each segment file is named after the position of its first byte. Records are [length][crc32][payload].
+public class PunchEventLog implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PunchEventLog.class);
+    
+    private static final int HEADER_BYTES = 8;
+    
+    // Written where the next record would not fit; readers continue in the following segment
+    private static final int END_OF_SEGMENT = -1;
+    
+    private static final String SUFFIX = ".log";
+    
+    // Unsafe.invokeCleaner, the only way to unmap a buffer before it is garbage collected; null if unavailable
+    private static final Object UNSAFE;
+    
+    private static final Method INVOKE_CLEANER;
+    
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Cannot unmap punch log segments explicitly; deleting them may fail until they are collected", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+    
+    private final Path directory;
+    
+    private final int segmentSize;
+    
+    private final boolean syncOnAppend;
+    
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    
+    // ReentrantLock rather than synchronized, so appends from virtual threads do not pin their carriers
+    private final ReentrantLock appendLock = new ReentrantLock();
+    
+    private Segment active;
+    
+    private int activeOffset;
+    
+    // Everything before this is completely written; readers never look past it
+    private volatile long endPosition;
+    
+    public PunchEventLog(Path directory, int segmentSize, boolean syncOnAppend) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnAppend = syncOnAppend;
+        Files.createDirectories(directory);
+        
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                // Existing segments keep their size, since it fixes where the next one starts
+                long size = Files.size(file);
+                segments.put(base, map(base, file, size > 0 ? size : segmentSize));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, createSegment(0L));
+        }
+        active = segments.lastEntry().getValue();
+        activeOffset = recoverEnd(active);
+        endPosition = active.base() + activeOffset;
+    }
+    
+    // Returns the position just past the appended record
+    public long append(byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes + 4 > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a log segment");
+        }
+        
+        appendLock.lock();
+        try {
+            if (activeOffset + recordBytes + 4 > active.size()) {
+                active.buffer().putInt(activeOffset, END_OF_SEGMENT);
+                if (syncOnAppend) {
+                    active.buffer().force(activeOffset, 4);
+                }
+                Segment next = createSegment(active.base() + active.size());
+                segments.put(next.base(), next);
+                active = next;
+                activeOffset = 0;
+            }
+            
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            MappedByteBuffer buffer = active.buffer();
+            buffer.putInt(activeOffset + 4, (int) crc.getValue());
+            buffer.put(activeOffset + HEADER_BYTES, payload);
+            // Length last, so a torn write reads as the end of the log
+            buffer.putInt(activeOffset, payload.length);
+            if (syncOnAppend) {
+                buffer.force(activeOffset, recordBytes);
+            }
+            activeOffset += recordBytes;
+            endPosition = active.base() + activeOffset;
+            return endPosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    public List<LogRecord> read(long fromPosition, int maxRecords) {
+        List<LogRecord> records = new ArrayList<>();
+        long end = endPosition;
+        long position = Math.max(fromPosition, getStartPosition());
+        while (records.size() < maxRecords && position < end) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            int offset = (int) (position - segment.base());
+            int length = offset + 4 <= segment.size() ? segment.buffer().getInt(offset) : END_OF_SEGMENT;
+            if (length == END_OF_SEGMENT) {
+                position = segment.base() + segment.size();
+                continue;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer().get(offset + HEADER_BYTES, payload);
+            long next = position + HEADER_BYTES + length;
+            records.add(new LogRecord(position, next, payload));
+            position = next;
+        }
+        return records;
+    }
+    
+    public long getStartPosition() {
+        return segments.firstKey();
+    }
+    
+    public long getEndPosition() {
+        return endPosition;
+    }
+    
+    // Drops segments that lie entirely before the position; the segment being written is always kept.
+    // Callers must not be reading concurrently: a dropped segment is unmapped, since Windows will not delete a
+    // mapped file. A segment that still cannot be deleted is mapped again and retried at the next start.
+    public void deleteBefore(long position) {
+        for (Segment segment : segments.headMap(active.base()).values()) {
+            if (segment.base() + segment.size() > position) {
+                break;
+            }
+            segments.remove(segment.base());
+            try {
+                segment.channel().close();
+                unmap(segment.buffer());
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                logger.warn("Could not delete punch log segment {}", segment.path(), e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer().force();
+                segment.channel().close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    // Scans the last segment for the first record that is missing or fails its checksum
+    private int recoverEnd(Segment segment) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segment.size()) {
+            int length = segment.buffer().getInt(offset);
+            if (length == 0 || length == END_OF_SEGMENT) {
+                break;
+            }
+            if (length < 0 || offset + HEADER_BYTES + length > segment.size()) {
+                logger.warn("Punch log {} has a damaged record at offset {}; later bytes are overwritten", segment.path(), offset);
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer().get(offset + HEADER_BYTES, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.buffer().getInt(offset + 4)) {
+                logger.warn("Punch log {} has a torn record at offset {}; later bytes are overwritten", segment.path(), offset);
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        // Clear the header left by a torn write, so the next append starts from a clean slot
+        if (offset + HEADER_BYTES <= segment.size()) {
+            segment.buffer().putLong(offset, 0L);
+        }
+        return offset;
+    }
+    
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Could not unmap punch log segment", e);
+        }
+    }
+    
+    private Segment createSegment(long base) throws IOException {
+        return map(base, directory.resolve(String.format("%020d%s", base, SUFFIX)), segmentSize);
+    }
+    
+    private static Segment map(long base, Path path, long size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new Segment(base, path, channel, buffer);
+    }
+    
+    public record LogRecord(long position, long nextPosition, byte[] payload) {
+    }
+    
+    private record Segment(long base, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        
+        int size() {
+            return buffer.capacity();
+        }
+    }
+}
@@ -0,0 +1,712 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.PunchLogCheckpoint;
+import com.teamlogger.backend.entity.PunchLogDeadLetter;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.repository.ProjectRepository;
+import com.teamlogger.backend.repository.PunchLogCheckpointRepository;
+import com.teamlogger.backend.repository.PunchLogDeadLetterRepository;
+import com.teamlogger.backend.repository.TaskRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+// Write-behind path for punch actions. Each action is checked against the user's open entry in memory, appended
+// to the local punch log and acknowledged; applyPending then writes the log to time_entries in JDBC batches.
+// Open entries live on the node that took the punch, so with several nodes time tracking must be routed by user.
+// Records time_entries rejects are moved to punch_log_dead_letters and counted as punch.log.dead_letters.
+@Service
+public class PunchLogService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PunchLogService.class);
+    
+    private static final int LOCK_STRIPES = 64;
+    
+    // Length of time_entries.notes
+    private static final int NOTES_LENGTH = 255;
+    
+    private static final String INSERT_SQL = "INSERT INTO time_entries (user_id, project_id, task_id, punch_in_time, " +
+            "punch_out_time, lunch_in_time, lunch_out_time, break_start_time, break_end_time, total_work_hours, " +
+            "total_break_hours, total_lunch_hours, overtime_hours, is_active, notes, created_at, updated_at, " +
+            "is_manual_entry, is_approved) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, false)";
+    
+    private static final String UPDATE_SQL = "UPDATE time_entries SET punch_out_time = ?, lunch_in_time = ?, " +
+            "lunch_out_time = ?, break_start_time = ?, break_end_time = ?, total_work_hours = ?, total_break_hours = ?, " +
+            "total_lunch_hours = ?, overtime_hours = ?, is_active = ?, notes = ?, updated_at = ? WHERE id = ?";
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProjectRepository projectRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private PunchLogCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private PunchLogDeadLetterRepository deadLetterRepository;
+    
+    @Autowired
+    private TimeRollupService timeRollupService;
+    
+    @Autowired
+    private ScreenshotService screenshotService;
+    
+    // Holds each open entry as acknowledged, including actions not yet written to time_entries
+    @Autowired
+    private ActiveTimeEntryIndex activeTimeEntryIndex;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${punch-log.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${punch-log.dir:punch-log}")
+    private String logDirectory;
+    
+    @Value("${punch-log.segment-size:16777216}")
+    private int segmentSize;
+    
+    // Flush every append to disk before acknowledging it
+    @Value("${punch-log.sync:true}")
+    private boolean syncOnAppend;
+    
+    @Value("${punch-log.apply-batch-size:500}")
+    private int applyBatchSize;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    // Serializes actions per user, so log order matches the order the user saw
+    private final ReentrantLock[] userLocks = new ReentrantLock[LOCK_STRIPES];
+    
+    // Also keeps log reads apart from segment deletion, which unmaps the segments it drops
+    private final ReentrantLock applyLock = new ReentrantLock();
+    
+    // userId -> open row as it stands in time_entries; only used while holding applyLock
+    private final Map<Long, AppliedEntry> appliedEntries = new HashMap<>();
+    
+    private PunchEventLog log;
+    
+    private String nodeId;
+    
+    private volatile long appliedPosition;
+    
+    public PunchLogService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+    
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path logPath = Paths.get(logDirectory).toAbsolutePath();
+        log = new PunchEventLog(logPath, segmentSize, syncOnAppend);
+        nodeId = loadNodeId(logPath);
+        appliedPosition = checkpointRepository.findById(nodeId)
+                .map(PunchLogCheckpoint::getPosition)
+                .orElse(log.getStartPosition());
+        // Segments a previous run wrote but could not delete
+        log.deleteBefore(appliedPosition);
+        
+        // The index was loaded from time_entries, so before replay it holds exactly the applied rows
+        for (TimeEntry entry : activeTimeEntryIndex.getAll()) {
+            appliedEntries.put(entry.getUser().getId(),
+                    new AppliedEntry(entry.getId(), entry.getTotalWorkHours(), entry.getOvertimeHours()));
+        }
+        
+        // Actions acknowledged before the last stop that had not been written yet
+        long position = appliedPosition;
+        int replayed = 0;
+        List<PunchEventLog.LogRecord> records;
+        while (!(records = log.read(position, applyBatchSize)).isEmpty()) {
+            for (PunchEventLog.LogRecord record : records) {
+                PunchEvent event = PunchEvent.decode(record.payload());
+                TimeEntry entry = event.toTimeEntry();
+                TimeEntry current = activeTimeEntryIndex.get(event.userId());
+                if (event.action() != PunchAction.PUNCH_IN && current != null) {
+                    entry.setId(current.getId());
+                }
+                // Later actions keep the names the index holds for the entry
+                if (event.action() == PunchAction.PUNCH_IN) {
+                    loadNames(entry);
+                }
+                if (entry.isActive()) {
+                    activeTimeEntryIndex.put(entry);
+                } else {
+                    activeTimeEntryIndex.remove(event.userId());
+                }
+            }
+            replayed += records.size();
+            position = records.get(records.size() - 1).nextPosition();
+        }
+        logger.info("Punch log {} opened at {}, {} event(s) waiting to be written", logPath, appliedPosition, replayed);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        applyPending();
+        log.close();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public long getPendingBytes() {
+        return enabled ? log.getEndPosition() - appliedPosition : 0;
+    }
+    
+    public TimeEntry punchIn(Long userId, Long projectId, Long taskId, String notes) {
+        // Only the ids are logged, so check them now rather than fail when the row is written. The index keeps their
+        // names from here, so later actions and /current need no lookup.
+        TimeEntry named = new TimeEntry();
+        named.setUser(userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found")));
+        if (projectId != null) {
+            named.setProject(projectRepository.findById(projectId)
+                    .orElseThrow(() -> new RuntimeException("Project not found")));
+        }
+        if (taskId != null) {
+            named.setTask(taskRepository.findById(taskId)
+                    .orElseThrow(() -> new RuntimeException("Task not found")));
+        }
+        
+        return record(userId, PunchAction.PUNCH_IN, current -> {
+            if (current != null) {
+                throw new RuntimeException("User already has an active time entry");
+            }
+            TimeEntry entry = new TimeEntry();
+            entry.setUser(named.getUser());
+            entry.setProject(named.getProject());
+            entry.setTask(named.getTask());
+            entry.setPunchInTime(LocalDateTime.now());
+            entry.setActive(true);
+            entry.setNotes(notes);
+            return entry;
+        });
+    }
+    
+    public TimeEntry punchOut(Long userId, String notes) {
+        return record(userId, PunchAction.PUNCH_OUT, current -> {
+            TimeEntry entry = requireOpen(current);
+            entry.setPunchOutTime(LocalDateTime.now());
+            entry.setActive(false);
+            if (notes != null) {
+                entry.setNotes(entry.getNotes() != null ? entry.getNotes() + "\n" + notes : notes);
+            }
+            entry.calculateHours();
+            return entry;
+        });
+    }
+    
+    public TimeEntry startLunch(Long userId) {
+        return record(userId, PunchAction.LUNCH_START, current -> {
+            TimeEntry entry = requireOpen(current);
+            if (entry.getLunchInTime() != null) {
+                throw new RuntimeException("Lunch already started");
+            }
+            entry.setLunchInTime(LocalDateTime.now());
+            return entry;
+        });
+    }
+    
+    public TimeEntry endLunch(Long userId) {
+        return record(userId, PunchAction.LUNCH_END, current -> {
+            TimeEntry entry = requireOpen(current);
+            if (entry.getLunchInTime() == null) {
+                throw new RuntimeException("Lunch not started");
+            }
+            if (entry.getLunchOutTime() != null) {
+                throw new RuntimeException("Lunch already ended");
+            }
+            entry.setLunchOutTime(LocalDateTime.now());
+            entry.calculateHours();
+            return entry;
+        });
+    }
+    
+    public TimeEntry startBreak(Long userId) {
+        return record(userId, PunchAction.BREAK_START, current -> {
+            TimeEntry entry = requireOpen(current);
+            if (entry.getBreakStartTime() != null && entry.getBreakEndTime() == null) {
+                throw new RuntimeException("Break already started");
+            }
+            entry.setBreakStartTime(LocalDateTime.now());
+            return entry;
+        });
+    }
+    
+    public TimeEntry endBreak(Long userId) {
+        return record(userId, PunchAction.BREAK_END, current -> {
+            TimeEntry entry = requireOpen(current);
+            if (entry.getBreakStartTime() == null) {
+                throw new RuntimeException("Break not started");
+            }
+            if (entry.getBreakEndTime() != null) {
+                throw new RuntimeException("Break already ended");
+            }
+            entry.setBreakEndTime(LocalDateTime.now());
+            entry.calculateHours();
+            return entry;
+        });
+    }
+    
+    // Writes logged actions to time_entries; the checkpoint commits with the rows, so each action is written once
+    @Scheduled(fixedDelayString = "${punch-log.apply-interval:200}")
+    public void applyPending() {
+        if (!enabled) {
+            return;
+        }
+        applyLock.lock();
+        try {
+            List<PunchEventLog.LogRecord> records;
+            do {
+                records = log.read(appliedPosition, applyBatchSize);
+                if (!records.isEmpty()) {
+                    applyRecords(records);
+                }
+            } while (records.size() == applyBatchSize);
+        } catch (Exception e) {
+            logger.warn("Could not write punch log to time_entries, retrying on the next run: {}", e.getMessage());
+        } finally {
+            applyLock.unlock();
+        }
+    }
+    
+    private TimeEntry record(Long userId, PunchAction action, UnaryOperator<TimeEntry> transition) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            TimeEntry entry = transition.apply(activeTimeEntryIndex.get(userId));
+            // Rejected before it is acknowledged; time_entries could not hold it later
+            if (entry.getNotes() != null && entry.getNotes().length() > NOTES_LENGTH) {
+                throw new RuntimeException("Notes cannot be longer than " + NOTES_LENGTH + " characters");
+            }
+            try {
+                log.append(PunchEvent.of(action, entry).encode());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to record " + action.name().toLowerCase().replace('_', ' '), e);
+            }
+            if (entry.isActive()) {
+                activeTimeEntryIndex.put(entry);
+            } else {
+                activeTimeEntryIndex.remove(userId);
+            }
+            // Not yet written, so the response has no id; the names come from the index
+            return activeTimeEntryIndex.copyOf(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // A batch time_entries rejects is retried one record at a time. Records it still rejects are moved to
+    // punch_log_dead_letters, so one bad record cannot stop the log; any other failure is retried on the next run
+    private void applyRecords(List<PunchEventLog.LogRecord> records) {
+        try {
+            applyBatch(records);
+            return;
+        } catch (DataIntegrityViolationException | IllegalStateException | UncheckedIOException e) {
+            if (records.size() == 1) {
+                deadLetter(records.get(0), e);
+                return;
+            }
+            logger.warn("Punch log batch at {} was rejected, writing its {} records one at a time: {}",
+                    appliedPosition, records.size(), e.getMessage());
+        }
+        for (PunchEventLog.LogRecord record : records) {
+            try {
+                applyBatch(List.of(record));
+            } catch (DataIntegrityViolationException | IllegalStateException | UncheckedIOException e) {
+                deadLetter(record, e);
+            }
+        }
+    }
+    
+    private void deadLetter(PunchEventLog.LogRecord record, RuntimeException error) {
+        PunchEvent event = null;
+        try {
+            event = PunchEvent.decode(record.payload());
+        } catch (IllegalStateException | UncheckedIOException e) {
+            // Kept as raw bytes all the same
+        }
+        String message = String.valueOf(error.getMessage());
+        PunchLogDeadLetter letter = new PunchLogDeadLetter();
+        letter.setNodeId(nodeId);
+        letter.setPosition(record.position());
+        letter.setUserId(event != null ? event.userId() : null);
+        letter.setAction(event != null ? event.action().name() : "UNREADABLE");
+        letter.setPayload(record.payload());
+        letter.setError(message.length() > PunchLogDeadLetter.ERROR_LENGTH
+                ? message.substring(0, PunchLogDeadLetter.ERROR_LENGTH) : message);
+        letter.setCreatedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            deadLetterRepository.save(letter);
+            checkpointRepository.savePosition(nodeId, record.nextPosition());
+        });
+        meterRegistry.counter("punch.log.dead_letters").increment();
+        logger.error("Punch log record at {} ({} for user {}) could not be written to time_entries; moved to punch_log_dead_letters",
+                record.position(), letter.getAction(), letter.getUserId(), error);
+        
+        appliedPosition = record.nextPosition();
+        log.deleteBefore(appliedPosition);
+        if (event != null && event.action() == PunchAction.PUNCH_IN) {
+            forgetOpenEntry(event.userId(), event.punchInTime());
+        }
+    }
+    
+    private void applyBatch(List<PunchEventLog.LogRecord> records) {
+        // One row per time entry holding its latest state, in the order the entries were first touched
+        List<PendingRow> rows = new ArrayList<>();
+        Map<Long, PendingRow> latestByUser = new HashMap<>();
+        for (PunchEventLog.LogRecord record : records) {
+            PunchEvent event = PunchEvent.decode(record.payload());
+            PendingRow row = latestByUser.get(event.userId());
+            if (event.action() == PunchAction.PUNCH_IN) {
+                row = new PendingRow(null);
+                rows.add(row);
+                latestByUser.put(event.userId(), row);
+            } else if (row == null) {
+                AppliedEntry applied = appliedEntries.get(event.userId());
+                if (applied == null) {
+                    logger.warn("Dropping {} for user {}: no open time entry to apply it to", event.action(), event.userId());
+                    continue;
+                }
+                row = new PendingRow(applied);
+                rows.add(row);
+                latestByUser.put(event.userId(), row);
+            }
+            row.entry = event.toTimeEntry();
+        }
+        
+        long nextPosition = records.get(records.size() - 1).nextPosition();
+        transactionTemplate.executeWithoutResult(status -> {
+            insertRows(rows.stream().filter(row -> row.applied == null).toList());
+            updateRows(rows.stream().filter(row -> row.applied != null).toList());
+            timeRollupService.recordEntryChanges(rows.stream()
+                    .map(row -> row.applied == null
+                            ? new TimeRollupService.EntryChange(row.entry, null, null, true)
+                            : new TimeRollupService.EntryChange(row.entry, row.applied.workHours(), row.applied.overtimeHours(), false))
+                    .toList());
+            checkpointRepository.savePosition(nodeId, nextPosition);
+        });
+        
+        for (PendingRow row : rows) {
+            Long userId = row.entry.getUser().getId();
+            if (row.entry.isActive()) {
+                appliedEntries.put(userId, new AppliedEntry(row.entry.getId(), row.entry.getTotalWorkHours(), row.entry.getOvertimeHours()));
+                if (row.applied == null) {
+                    attachId(userId, row.entry);
+                }
+            } else {
+                appliedEntries.remove(userId);
+            }
+        }
+        appliedPosition = nextPosition;
+        log.deleteBefore(nextPosition);
+    }
+    
+    private void insertRows(List<PendingRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        TimeEntry entry = rows.get(i).entry;
+                        ps.setLong(1, entry.getUser().getId());
+                        setNullable(ps, 2, entry.getProject() != null ? entry.getProject().getId() : null, Types.BIGINT);
+                        setNullable(ps, 3, entry.getTask() != null ? entry.getTask().getId() : null, Types.BIGINT);
+                        setNullable(ps, 4, entry.getPunchInTime(), Types.TIMESTAMP);
+                        bindState(ps, 5, entry);
+                        // created_at is when the punch was taken, not when it reached the table
+                        setNullable(ps, 16, entry.getPunchInTime(), Types.TIMESTAMP);
+                        setNullable(ps, 17, now, Types.TIMESTAMP);
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).entry.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+    
+    private void updateRows(List<PendingRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingRow row = rows.get(i);
+                row.entry.setId(row.applied.id());
+                bindState(ps, 1, row.entry);
+                setNullable(ps, 12, now, Types.TIMESTAMP);
+                ps.setLong(13, row.applied.id());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+    
+    // The eleven columns an action can change, from punch_out_time to notes
+    private static void bindState(PreparedStatement ps, int first, TimeEntry entry) throws SQLException {
+        setNullable(ps, first, entry.getPunchOutTime(), Types.TIMESTAMP);
+        setNullable(ps, first + 1, entry.getLunchInTime(), Types.TIMESTAMP);
+        setNullable(ps, first + 2, entry.getLunchOutTime(), Types.TIMESTAMP);
+        setNullable(ps, first + 3, entry.getBreakStartTime(), Types.TIMESTAMP);
+        setNullable(ps, first + 4, entry.getBreakEndTime(), Types.TIMESTAMP);
+        setNullable(ps, first + 5, entry.getTotalWorkHours(), Types.DOUBLE);
+        setNullable(ps, first + 6, entry.getTotalBreakHours(), Types.DOUBLE);
+        setNullable(ps, first + 7, entry.getTotalLunchHours(), Types.DOUBLE);
+        setNullable(ps, first + 8, entry.getOvertimeHours(), Types.DOUBLE);
+        ps.setBoolean(first + 9, entry.isActive());
+        setNullable(ps, first + 10, entry.getNotes(), Types.VARCHAR);
+    }
+    
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+    
+    private void attachId(Long userId, TimeEntry applied) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            TimeEntry open = activeTimeEntryIndex.get(userId);
+            // The user may have punched out and in again since; only the same entry takes the id
+            if (open == null || open.getId() != null || !open.getPunchInTime().equals(applied.getPunchInTime())) {
+                return;
+            }
+            open.setId(applied.getId());
+            activeTimeEntryIndex.put(open);
+            screenshotService.attachTimeEntry(userId, applied.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // An entry whose punch-in never reached the table would stay open in memory only
+    private void forgetOpenEntry(Long userId, LocalDateTime punchInTime) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            TimeEntry open = activeTimeEntryIndex.get(userId);
+            if (open != null && open.getId() == null && open.getPunchInTime().equals(punchInTime)) {
+                activeTimeEntryIndex.remove(userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Missing rows keep the id-only reference; writing the entry will reject it
+    private void loadNames(TimeEntry entry) {
+        userRepository.findById(entry.getUser().getId()).ifPresent(entry::setUser);
+        if (entry.getProject() != null) {
+            projectRepository.findById(entry.getProject().getId()).ifPresent(entry::setProject);
+        }
+        if (entry.getTask() != null) {
+            taskRepository.findById(entry.getTask().getId()).ifPresent(entry::setTask);
+        }
+    }
+    
+    private ReentrantLock lockFor(Long userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+    }
+    
+    private static TimeEntry requireOpen(TimeEntry current) {
+        if (current == null) {
+            throw new RuntimeException("No active time entry found");
+        }
+        return current;
+    }
+    
+    // The log directory keeps its node id, so the checkpoint follows the log rather than the host name
+    private static String loadNodeId(Path logPath) throws IOException {
+        Path file = logPath.resolve("node-id");
+        if (Files.exists(file)) {
+            return Files.readString(file).trim();
+        }
+        String id = UUID.randomUUID().toString();
+        Files.writeString(file, id);
+        return id;
+    }
+    
+    // Stored by ordinal in the log; only ever add new actions at the end
+    private enum PunchAction {
+        PUNCH_IN, PUNCH_OUT, LUNCH_START, LUNCH_END, BREAK_START, BREAK_END
+    }
+    
+    private record AppliedEntry(Long id, Double workHours, Double overtimeHours) {
+    }
+    
+    private static class PendingRow {
+        
+        private final AppliedEntry applied;
+        
+        private TimeEntry entry;
+        
+        PendingRow(AppliedEntry applied) {
+            this.applied = applied;
+        }
+    }
+    
+    // The entry's full state after the action, so replaying a suffix of the log needs nothing else
+    private record PunchEvent(PunchAction action, Long userId, Long projectId, Long taskId,
+                              LocalDateTime punchInTime, LocalDateTime punchOutTime,
+                              LocalDateTime lunchInTime, LocalDateTime lunchOutTime,
+                              LocalDateTime breakStartTime, LocalDateTime breakEndTime,
+                              boolean active, String notes) {
+        
+        private static final int VERSION = 1;
+        
+        static PunchEvent of(PunchAction action, TimeEntry entry) {
+            return new PunchEvent(action, entry.getUser().getId(),
+                    entry.getProject() != null ? entry.getProject().getId() : null,
+                    entry.getTask() != null ? entry.getTask().getId() : null,
+                    entry.getPunchInTime(), entry.getPunchOutTime(), entry.getLunchInTime(), entry.getLunchOutTime(),
+                    entry.getBreakStartTime(), entry.getBreakEndTime(), entry.isActive(), entry.getNotes());
+        }
+        
+        TimeEntry toTimeEntry() {
+            TimeEntry entry = new TimeEntry();
+            entry.setUser(ActiveTimeEntryIndex.userReference(userId));
+            entry.setProject(ActiveTimeEntryIndex.projectReference(projectId));
+            entry.setTask(ActiveTimeEntryIndex.taskReference(taskId));
+            entry.setPunchInTime(punchInTime);
+            entry.setPunchOutTime(punchOutTime);
+            entry.setLunchInTime(lunchInTime);
+            entry.setLunchOutTime(lunchOutTime);
+            entry.setBreakStartTime(breakStartTime);
+            entry.setBreakEndTime(breakEndTime);
+            entry.setActive(active);
+            entry.setNotes(notes);
+            entry.calculateHours();
+            return entry;
+        }
+        
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(VERSION);
+                out.writeByte(action.ordinal());
+                out.writeLong(userId);
+                writeId(out, projectId);
+                writeId(out, taskId);
+                writeTime(out, punchInTime);
+                writeTime(out, punchOutTime);
+                writeTime(out, lunchInTime);
+                writeTime(out, lunchOutTime);
+                writeTime(out, breakStartTime);
+                writeTime(out, breakEndTime);
+                out.writeBoolean(active);
+                out.writeBoolean(notes != null);
+                if (notes != null) {
+                    out.writeUTF(notes);
+                }
+            }
+            return bytes.toByteArray();
+        }
+        
+        static PunchEvent decode(byte[] payload) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IllegalStateException("Unsupported punch event version " + version);
+                }
+                return new PunchEvent(PunchAction.values()[in.readUnsignedByte()], in.readLong(), readId(in), readId(in),
+                        readTime(in), readTime(in), readTime(in), readTime(in), readTime(in), readTime(in),
+                        in.readBoolean(), in.readBoolean() ? in.readUTF() : null);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unreadable punch event", e);
+            }
+        }
+        
+        private static void writeId(DataOutputStream out, Long id) throws IOException {
+            out.writeLong(id != null ? id : -1L);
+        }
+        
+        private static Long readId(DataInputStream in) throws IOException {
+            long id = in.readLong();
+            return id >= 0 ? id : null;
+        }
+        
+        private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+            out.writeBoolean(time != null);
+            if (time != null) {
+                out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(time.getNano());
+            }
+        }
+        
+        private static LocalDateTime readTime(DataInputStream in) throws IOException {
+            return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+        }
+    }
+}
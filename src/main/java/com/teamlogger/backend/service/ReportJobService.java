@@ -0,0 +1,346 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.ReportJob;
+import com.teamlogger.backend.job.ReportGenerationJob;
+import com.teamlogger.backend.repository.ReportJobRepository;
+import jakarta.annotation.PostConstruct;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs large reports as Quartz jobs and keeps their results on disk until they expire
+@Service
+public class ReportJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+    
+    public static final String JOB_GROUP = "reports";
+    
+    public static final String REPORT_JOB_ID = "reportJobId";
+    
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+    
+    @Autowired
+    private TimeEntryArchiveService timeEntryArchiveService;
+    
+    @Autowired
+    private TimesheetExportService timesheetExportService;
+    
+    @Autowired
+    private ProductivityReportService productivityReportService;
+    
+    @Autowired
+    private Scheduler scheduler;
+    
+    @Value("${report.dir:reports}")
+    private String reportDirectory;
+    
+    @Value("${report.ttl:86400000}")
+    private long resultTtl;
+    
+    private Path reportPath;
+    
+    // Status writes commit on their own, even from inside the read-only export transaction
+    private final TransactionTemplate statusTransaction;
+    
+    public ReportJobService(PlatformTransactionManager transactionManager) {
+        this.statusTransaction = new TransactionTemplate(transactionManager);
+        this.statusTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    @PostConstruct
+    public void init() throws IOException {
+        reportPath = Paths.get(reportDirectory).toAbsolutePath();
+        Files.createDirectories(reportPath);
+    }
+    
+    // Returns the job already queued, running or holding a live result for the same request by the same user
+    public ReportJob submit(ReportJob.ReportType reportType, Long requestedBy, Long targetUserId,
+                            LocalDate startDate, LocalDate endDate) {
+        String requestKey = requestKey(reportType, requestedBy, targetUserId, startDate, endDate);
+        ReportJob existing = reportJobRepository.findByDedupKey(requestKey).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        
+        ReportJob job = new ReportJob();
+        job.setReportType(reportType);
+        job.setRequestedBy(requestedBy);
+        job.setTargetUserId(targetUserId);
+        job.setStartDate(startDate);
+        job.setEndDate(endDate);
+        job.setRequestKey(requestKey);
+        job.setDedupKey(requestKey);
+        job.setFileName(fileName(reportType, startDate, endDate));
+        try {
+            job = reportJobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            // Another request (possibly on another node) got there first
+            return reportJobRepository.findByDedupKey(requestKey)
+                    .orElseThrow(() -> new RuntimeException("Report job could not be queued"));
+        }
+        
+        JobDetail jobDetail = JobBuilder.newJob(ReportGenerationJob.class)
+                .withIdentity(JobKey.jobKey(String.valueOf(job.getId()), JOB_GROUP))
+                .usingJobData(REPORT_JOB_ID, job.getId())
+                .requestRecovery()
+                .build();
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .withIdentity(String.valueOf(job.getId()), JOB_GROUP)
+                .startNow()
+                .build();
+        try {
+            scheduler.scheduleJob(jobDetail, trigger);
+        } catch (ObjectAlreadyExistsException e) {
+            logger.debug("Report job {} was already scheduled", job.getId());
+        } catch (SchedulerException e) {
+            markFailed(job.getId(), "Could not schedule report: " + e.getMessage());
+            throw new RuntimeException("Report job could not be scheduled", e);
+        }
+        return job;
+    }
+    
+    public ReportJob getJob(Long id) {
+        return reportJobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Report job not found"));
+    }
+    
+    public List<ReportJob> getJobsForUser(Long userId) {
+        return reportJobRepository.findByRequestedByOrderByCreatedAtDesc(userId);
+    }
+    
+    public Path getResultFile(ReportJob job) {
+        if (job.getStatus() != ReportJob.ReportStatus.COMPLETED || job.getResultPath() == null) {
+            throw new RuntimeException("Report is not available for download");
+        }
+        Path file = Paths.get(job.getResultPath());
+        if (!Files.exists(file)) {
+            throw new RuntimeException("Report file is no longer available");
+        }
+        return file;
+    }
+    
+    public String getContentType(ReportJob.ReportType reportType) {
+        return switch (reportType) {
+            case TIMESHEET_EXCEL, PRODUCTIVITY_EXCEL -> "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+            case TIMESHEET_PDF -> "application/pdf";
+            case TIMESHEET_CSV -> "text/csv";
+        };
+    }
+    
+    public Map<String, Object> toStatus(ReportJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", job.getId());
+        status.put("reportType", job.getReportType());
+        status.put("status", job.getStatus());
+        status.put("progress", job.getProgress());
+        status.put("startDate", job.getStartDate());
+        status.put("endDate", job.getEndDate());
+        status.put("fileName", job.getFileName());
+        status.put("fileSize", job.getFileSize());
+        status.put("createdAt", job.getCreatedAt());
+        status.put("completedAt", job.getCompletedAt());
+        status.put("expiresAt", job.getExpiresAt());
+        status.put("errorMessage", job.getErrorMessage());
+        if (job.getStatus() == ReportJob.ReportStatus.COMPLETED) {
+            status.put("downloadUrl", "/api/reports/jobs/" + job.getId() + "/download");
+        }
+        return status;
+    }
+    
+    // Called from the Quartz job; each status change commits right away so pollers see it
+    public void run(Long jobId) {
+        ReportJob job = reportJobRepository.findById(jobId).orElse(null);
+        if (job == null || !markRunning(jobId)) {
+            return;
+        }
+        
+        Path file = reportPath.resolve(job.getId() + "-" + job.getFileName());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            generate(job, out);
+        } catch (Exception e) {
+            logger.error("Report job {} failed", jobId, e);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Cleaned up by the sweep
+            }
+            markFailed(jobId, e.getMessage());
+            return;
+        }
+        markCompleted(jobId, file);
+    }
+    
+    private void generate(ReportJob job, OutputStream out) throws IOException {
+        switch (job.getReportType()) {
+            case TIMESHEET_EXCEL -> exportTimesheet(job, TimesheetExportService.ExportFormat.EXCEL, out);
+            case TIMESHEET_PDF -> exportTimesheet(job, TimesheetExportService.ExportFormat.PDF, out);
+            case TIMESHEET_CSV -> exportTimesheet(job, TimesheetExportService.ExportFormat.CSV, out);
+            case PRODUCTIVITY_EXCEL -> productivityReportService.writeExcel(job.getStartDate(), job.getEndDate(), out,
+                    new ProgressTracker(job.getId())::report);
+        }
+    }
+    
+    private void exportTimesheet(ReportJob job, TimesheetExportService.ExportFormat format, OutputStream out) {
+        Long total = timeEntryArchiveService.countTimeEntriesForUserInDateRange(job.getTargetUserId(),
+                job.getStartDate().atStartOfDay(), job.getEndDate().atTime(23, 59, 59));
+        ProgressTracker tracker = new ProgressTracker(job.getId());
+        timesheetExportService.exportTimesheet(job.getTargetUserId(), job.getStartDate(), job.getEndDate(), format, out,
+                rows -> tracker.report(total == null || total == 0 ? 99 : (int) (rows * 99 / total)));
+    }
+    
+    private boolean markRunning(Long jobId) {
+        return Boolean.TRUE.equals(statusTransaction.execute(status -> {
+            ReportJob job = reportJobRepository.findById(jobId).orElse(null);
+            // Quartz may recover a job that already finished if its node died before the trigger was removed
+            if (job == null || job.getStatus() == ReportJob.ReportStatus.COMPLETED
+                    || job.getStatus() == ReportJob.ReportStatus.EXPIRED) {
+                return false;
+            }
+            job.setStatus(ReportJob.ReportStatus.RUNNING);
+            job.setProgress(0);
+            job.setStartedAt(LocalDateTime.now());
+            return true;
+        }));
+    }
+    
+    private void updateProgress(Long jobId, int progress) {
+        statusTransaction.executeWithoutResult(status -> reportJobRepository.updateProgress(jobId, progress));
+    }
+    
+    private void markCompleted(Long jobId, Path file) {
+        statusTransaction.executeWithoutResult(status -> {
+            ReportJob job = getJob(jobId);
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(ReportJob.ReportStatus.COMPLETED);
+            job.setProgress(100);
+            job.setResultPath(file.toString());
+            try {
+                job.setFileSize(Files.size(file));
+            } catch (IOException e) {
+                logger.warn("Could not read size of report {}", file, e);
+            }
+            job.setCompletedAt(now);
+            job.setExpiresAt(now.plus(Duration.ofMillis(resultTtl)));
+        });
+    }
+    
+    private void markFailed(Long jobId, String errorMessage) {
+        statusTransaction.executeWithoutResult(status -> {
+            ReportJob job = getJob(jobId);
+            job.setStatus(ReportJob.ReportStatus.FAILED);
+            job.setErrorMessage(errorMessage);
+            job.setCompletedAt(LocalDateTime.now());
+            // Let the same request be retried
+            job.setDedupKey(null);
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${report.cleanup-interval:600000}")
+    @Transactional
+    public void cleanupExpiredReports() {
+        for (ReportJob job : reportJobRepository.findExpiredJobs(LocalDateTime.now())) {
+            deleteQuietly(job.getResultPath());
+            job.setStatus(ReportJob.ReportStatus.EXPIRED);
+            job.setResultPath(null);
+            job.setDedupKey(null);
+        }
+        
+        // Rows are shared across the cluster but files are per node, so each node also sweeps its own directory
+        long cutoff = System.currentTimeMillis() - resultTtl;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(reportPath)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to sweep report directory {}", reportPath, e);
+        }
+    }
+    
+    private void deleteQuietly(String path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(path));
+        } catch (IOException e) {
+            logger.warn("Failed to delete expired report {}", path, e);
+        }
+    }
+    
+    private static String fileName(ReportJob.ReportType reportType, LocalDate startDate, LocalDate endDate) {
+        return switch (reportType) {
+            case TIMESHEET_EXCEL -> "timesheet_" + startDate + "_to_" + endDate + ".xlsx";
+            case TIMESHEET_PDF -> "timesheet_" + startDate + "_to_" + endDate + ".pdf";
+            case TIMESHEET_CSV -> "timesheet_" + startDate + "_to_" + endDate + ".csv";
+            case PRODUCTIVITY_EXCEL -> "productivity_report_" + startDate + "_to_" + endDate + ".xlsx";
+        };
+    }
+    
+    // Per requester: jobs are only visible to the user who asked for them, so two managers never share one
+    private static String requestKey(ReportJob.ReportType reportType, Long requestedBy, Long targetUserId,
+                                     LocalDate startDate, LocalDate endDate) {
+        String request = reportType + "|" + requestedBy + "|" + targetUserId + "|" + startDate + "|" + endDate;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // Writes progress only when the percentage changes, so large reports do not issue an update per row
+    private class ProgressTracker {
+        
+        private final Long jobId;
+        
+        private int lastProgress = 0;
+        
+        ProgressTracker(Long jobId) {
+            this.jobId = jobId;
+        }
+        
+        void report(int progress) {
+            if (progress > lastProgress) {
+                lastProgress = progress;
+                updateProgress(jobId, progress);
+            }
+        }
+    }
+}
\ No newline at end of file
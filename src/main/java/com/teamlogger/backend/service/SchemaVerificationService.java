@@ -0,0 +1,106 @@
+package com.teamlogger.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Warns at startup when the live schema lacks an index the repository queries depend on
+@Service
+public class SchemaVerificationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SchemaVerificationService.class);
+    
+    // Index name and its columns in order, as created by the db/migration scripts
+    private static final Map<String, Map<String, String>> EXPECTED_INDEXES = new LinkedHashMap<>();
+    
+    static {
+        Map<String, String> timeEntries = new LinkedHashMap<>();
+        timeEntries.put("idx_time_entries_user_punch_in", "user_id,punch_in_time,total_work_hours,overtime_hours");
+        timeEntries.put("idx_time_entries_punch_in", "punch_in_time,total_work_hours,overtime_hours");
+        timeEntries.put("idx_time_entries_active_user", "is_active,user_id");
+        timeEntries.put("idx_time_entries_user_approved_punch_in", "user_id,is_approved,punch_in_time");
+        EXPECTED_INDEXES.put("time_entries", timeEntries);
+        
+        Map<String, String> screenshots = new LinkedHashMap<>();
+        screenshots.put("idx_screenshots_user_captured", "user_id,captured_at");
+        screenshots.put("idx_screenshots_captured", "captured_at");
+        screenshots.put("idx_screenshots_time_entry_captured", "time_entry_id,captured_at");
+        screenshots.put("idx_screenshots_user_approved", "user_id,is_approved");
+        screenshots.put("idx_screenshots_user_manual_captured", "user_id,is_manual,captured_at");
+        EXPECTED_INDEXES.put("screenshots", screenshots);
+        
+        Map<String, String> archive = new LinkedHashMap<>();
+        archive.put("idx_time_entries_archive_user_punch_in", "user_id,punch_in_time");
+        archive.put("idx_time_entries_archive_punch_in", "punch_in_time");
+        EXPECTED_INDEXES.put("time_entries_archive", archive);
+        
+        EXPECTED_INDEXES.put("tasks", Map.of("ft_tasks_search", "title,description,tags"));
+        EXPECTED_INDEXES.put("projects", Map.of("ft_projects_search", "name,description,client_name"));
+        EXPECTED_INDEXES.put("users", Map.of("ft_users_search", "username,email,first_name,last_name"));
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${schema.verify-indexes:true}")
+    private boolean verifyIndexes;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyIndexes() {
+        if (!verifyIndexes) {
+            return;
+        }
+        List<String> problems = new ArrayList<>();
+        try {
+            for (Map.Entry<String, Map<String, String>> table : EXPECTED_INDEXES.entrySet()) {
+                Map<String, String> actual = loadIndexColumns(table.getKey());
+                for (Map.Entry<String, String> index : table.getValue().entrySet()) {
+                    String columns = actual.get(index.getKey());
+                    if (columns == null) {
+                        problems.add(table.getKey() + "." + index.getKey() + " is missing");
+                    } else if (!columns.equals(index.getValue())) {
+                        problems.add(table.getKey() + "." + index.getKey() + " is on (" + columns
+                                + "), expected (" + index.getValue() + ")");
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not verify database indexes: {}", e.getMessage());
+            return;
+        }
+        
+        if (problems.isEmpty()) {
+            logger.info("All {} expected indexes are present",
+                    EXPECTED_INDEXES.values().stream().mapToInt(Map::size).sum());
+        } else {
+            // Queries still work without them, but fall back to table scans
+            problems.forEach(problem -> logger.warn("Index check: {}", problem));
+            logger.warn("{} expected index(es) missing or changed; check that the Flyway migrations in db/migration have run",
+                    problems.size());
+        }
+    }
+    
+    private Map<String, String> loadIndexColumns(String table) {
+        Map<String, String> columnsByIndex = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT index_name, GROUP_CONCAT(column_name ORDER BY seq_in_index) AS column_list " +
+                        "FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = ? GROUP BY index_name",
+                rs -> {
+                    columnsByIndex.put(rs.getString("index_name"), rs.getString("column_list").toLowerCase());
+                },
+                table);
+        return columnsByIndex;
+    }
+}
@@ -1,28 +1,35 @@
 package com.teamlogger.backend.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import com.teamlogger.backend.entity.Screenshot;
 import com.teamlogger.backend.entity.User;
 import com.teamlogger.backend.entity.TimeEntry;
 import com.teamlogger.backend.repository.ScreenshotRepository;
 import com.teamlogger.backend.repository.UserRepository;
 import com.teamlogger.backend.repository.TimeEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ScreenshotService {
@@ -37,7 +44,10 @@ public class ScreenshotService {
     private TimeEntryRepository timeEntryRepository;
     
     @Autowired
-    private Cloudinary cloudinary;
+    private ScreenshotStore screenshotStore;
+    
+    @Autowired
+    private ScreenshotUploadQueue uploadQueue;
     
     @Value("${screenshot.interval:300000}")
     private long screenshotInterval;
@@ -48,21 +58,84 @@ public class ScreenshotService {
     @Value("${screenshot.quality:0.8}")
     private double screenshotQuality;
     
+    @Value("${screenshot.scheduler-threads:2}")
+    private int schedulerThreads;
+    
+    // Fraction of the interval each capture is randomly shifted by
+    @Value("${screenshot.jitter:0.1}")
+    private double screenshotJitter;
+    
     // Track active screenshot sessions
     private final ConcurrentHashMap<Long, ScreenshotSession> activeSessions = new ConcurrentHashMap<>();
     
+    // Shared by all sessions instead of one thread per punched-in user. Stays on platform threads even with
+    // spring.threads.virtual.enabled: capture goes through AWT, whose native calls would pin a virtual thread anyway
+    private ScheduledExecutorService captureScheduler;
+    
+    @PostConstruct
+    public void initScheduler() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        captureScheduler = Executors.newScheduledThreadPool(schedulerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "screenshot-capture-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdownScheduler() {
+        activeSessions.values().forEach(ScreenshotSession::stopCapture);
+        activeSessions.clear();
+        captureScheduler.shutdownNow();
+    }
+    
+    // Resume capture for everyone still punched in when the application stopped
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverActiveSessions() {
+        if (!screenshotEnabled) {
+            return;
+        }
+        
+        for (Object[] row : timeEntryRepository.findActiveUserAndEntryIds()) {
+            startScreenshotCapture((Long) row[0], (Long) row[1]);
+        }
+    }
+    
     public void startScreenshotCapture(Long userId, Long timeEntryId) {
         if (!screenshotEnabled) {
             return;
         }
         
         ScreenshotSession session = new ScreenshotSession(userId, timeEntryId);
-        activeSessions.put(userId, session);
+        ScreenshotSession previous = activeSessions.put(userId, session);
+        if (previous != null) {
+            previous.stopCapture();
+        }
         
-        // Start the screenshot capture thread
+        // Schedule the first capture on the shared scheduler
         session.startCapture();
     }
     
+    public int getActiveSessionCount() {
+        return activeSessions.size();
+    }
+    
+    private long nextCaptureDelay() {
+        double jitter = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * screenshotJitter;
+        return Math.max(1000L, (long) (screenshotInterval * (1 + jitter)));
+    }
+    
+    // Entries punched in through the punch log get their id once written; captures from then on carry it
+    public void attachTimeEntry(Long userId, Long timeEntryId) {
+        ScreenshotSession session = activeSessions.get(userId);
+        if (session != null) {
+            session.timeEntryId = timeEntryId;
+        } else {
+            // Punched in before a restart, so recoverActiveSessions did not see the entry yet
+            startScreenshotCapture(userId, timeEntryId);
+        }
+    }
+    
     public void stopScreenshotCapture(Long userId) {
         ScreenshotSession session = activeSessions.remove(userId);
         if (session != null) {
@@ -73,18 +146,22 @@ public class ScreenshotService {
     public Screenshot captureManualScreenshot(Long userId, Long timeEntryId, String notes) {
         try {
             BufferedImage screenshot = captureScreen();
-            String cloudinaryUrl = uploadToCloudinary(screenshot, userId);
+            byte[] pngData = encodePng(screenshot);
+            ScreenshotStore.StoredScreenshot stored = screenshotStore.store(pngData, newPublicId(userId));
             
             Screenshot screenshotEntity = new Screenshot();
-            screenshotEntity.setUser(userRepository.findById(userId).orElse(null));
-            screenshotEntity.setTimeEntry(timeEntryRepository.findById(timeEntryId).orElse(null));
-            screenshotEntity.setCloudinaryUrl(cloudinaryUrl);
+            screenshotEntity.setUser(userRepository.getReferenceById(userId));
+            if (timeEntryId != null) {
+                screenshotEntity.setTimeEntry(timeEntryRepository.getReferenceById(timeEntryId));
+            }
+            screenshotEntity.setCloudinaryUrl(stored.url());
+            screenshotEntity.setCloudinaryPublicId(stored.publicId());
             screenshotEntity.setFileName("manual_screenshot_" + System.currentTimeMillis() + ".png");
-            screenshotEntity.setFileSize((long) screenshot.getWidth() * screenshot.getHeight() * 4);
+            screenshotEntity.setFileSize((long) pngData.length);
             screenshotEntity.setImageWidth(screenshot.getWidth());
             screenshotEntity.setImageHeight(screenshot.getHeight());
             screenshotEntity.setCapturedAt(LocalDateTime.now());
-            screenshotEntity.setIsManual(true);
+            screenshotEntity.setManual(true);
             screenshotEntity.setNotes(notes);
             
             return screenshotRepository.save(screenshotEntity);
@@ -111,25 +188,14 @@ public class ScreenshotService {
         return compressed;
     }
     
-    private String uploadToCloudinary(BufferedImage image, Long userId) {
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", baos);
-            byte[] imageBytes = baos.toByteArray();
-            
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                    new ByteArrayInputStream(imageBytes),
-                    ObjectUtils.asMap(
-                            "public_id", "teamlogger/screenshots/user_" + userId + "_" + System.currentTimeMillis(),
-                            "folder", "teamlogger/screenshots",
-                            "resource_type", "image"
-                    )
-            );
-            
-            return (String) uploadResult.get("secure_url");
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to upload screenshot to Cloudinary", e);
-        }
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        return baos.toByteArray();
+    }
+    
+    private String newPublicId(Long userId) {
+        return "user_" + userId + "_" + System.currentTimeMillis();
     }
     
     public List<Screenshot> getUserScreenshots(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
@@ -144,14 +210,14 @@ public class ScreenshotService {
         Screenshot screenshot = screenshotRepository.findById(screenshotId)
                 .orElseThrow(() -> new RuntimeException("Screenshot not found"));
         
-        // Delete from Cloudinary
+        // Delete from the screenshot store
         try {
             if (screenshot.getCloudinaryPublicId() != null) {
-                cloudinary.uploader().destroy(screenshot.getCloudinaryPublicId(), ObjectUtils.emptyMap());
+                screenshotStore.delete(screenshot.getCloudinaryPublicId());
             }
         } catch (Exception e) {
             // Log error but continue with database deletion
-            System.err.println("Failed to delete screenshot from Cloudinary: " + e.getMessage());
+            System.err.println("Failed to delete screenshot from store: " + e.getMessage());
         }
         
         screenshotRepository.delete(screenshot);
@@ -161,7 +227,7 @@ public class ScreenshotService {
         Screenshot screenshot = screenshotRepository.findById(screenshotId)
                 .orElseThrow(() -> new RuntimeException("Screenshot not found"));
         
-        screenshot.setIsApproved(true);
+        screenshot.setApproved(true);
         screenshot.setApprovedBy(approvedBy);
         screenshot.setApprovedAt(LocalDateTime.now());
         
@@ -171,9 +237,9 @@ public class ScreenshotService {
     // Inner class to manage screenshot sessions
     private class ScreenshotSession {
         private final Long userId;
-        private final Long timeEntryId;
+        private volatile Long timeEntryId;
         private volatile boolean running = false;
-        private Thread captureThread;
+        private volatile ScheduledFuture<?> nextCapture;
         
         public ScreenshotSession(Long userId, Long timeEntryId) {
             this.userId = userId;
@@ -182,48 +248,53 @@ public class ScreenshotService {
         
         public void startCapture() {
             running = true;
-            captureThread = new Thread(() -> {
-                while (running) {
-                    try {
-                        Thread.sleep(screenshotInterval);
-                        if (running) {
-                            captureAndSaveScreenshot();
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    } catch (Exception e) {
-                        System.err.println("Error capturing screenshot: " + e.getMessage());
-                    }
-                }
-            });
-            captureThread.start();
+            scheduleNext();
         }
         
         public void stopCapture() {
             running = false;
-            if (captureThread != null) {
-                captureThread.interrupt();
+            ScheduledFuture<?> future = nextCapture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        
+        // One-shot scheduling so every cycle gets a fresh jitter
+        private void scheduleNext() {
+            if (running && !captureScheduler.isShutdown()) {
+                nextCapture = captureScheduler.schedule(this::runCapture, nextCaptureDelay(), TimeUnit.MILLISECONDS);
+            }
+        }
+        
+        private void runCapture() {
+            try {
+                if (running) {
+                    captureAndSaveScreenshot();
+                }
+            } catch (Exception e) {
+                System.err.println("Error capturing screenshot: " + e.getMessage());
+            } finally {
+                scheduleNext();
             }
         }
         
         private void captureAndSaveScreenshot() {
             try {
                 BufferedImage screenshot = captureScreen();
-                String cloudinaryUrl = uploadToCloudinary(screenshot, userId);
-                
-                Screenshot screenshotEntity = new Screenshot();
-                screenshotEntity.setUser(userRepository.findById(userId).orElse(null));
-                screenshotEntity.setTimeEntry(timeEntryRepository.findById(timeEntryId).orElse(null));
-                screenshotEntity.setCloudinaryUrl(cloudinaryUrl);
-                screenshotEntity.setFileName("auto_screenshot_" + System.currentTimeMillis() + ".png");
-                screenshotEntity.setFileSize((long) screenshot.getWidth() * screenshot.getHeight() * 4);
-                screenshotEntity.setImageWidth(screenshot.getWidth());
-                screenshotEntity.setImageHeight(screenshot.getHeight());
-                screenshotEntity.setCapturedAt(LocalDateTime.now());
-                screenshotEntity.setIsManual(false);
                 
-                screenshotRepository.save(screenshotEntity);
+                // Upload and save happen on the upload queue, not on the capture thread
+                uploadQueue.submit(new ScreenshotUploadQueue.PendingScreenshot(
+                        userId,
+                        timeEntryId,
+                        encodePng(screenshot),
+                        screenshot.getWidth(),
+                        screenshot.getHeight(),
+                        LocalDateTime.now(),
+                        false,
+                        null,
+                        "auto_screenshot_" + System.currentTimeMillis() + ".png",
+                        newPublicId(userId)
+                ));
             } catch (Exception e) {
                 System.err.println("Failed to capture and save screenshot: " + e.getMessage());
             }
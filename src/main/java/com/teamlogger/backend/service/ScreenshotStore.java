@@ -0,0 +1,12 @@
+package com.teamlogger.backend.service;
+
+// Where screenshot images end up; Cloudinary in production, local disk for development and tests
+public interface ScreenshotStore {
+    
+    StoredScreenshot store(byte[] pngData, String publicId) throws Exception;
+    
+    void delete(String publicId) throws Exception;
+    
+    record StoredScreenshot(String url, String publicId) {
+    }
+}
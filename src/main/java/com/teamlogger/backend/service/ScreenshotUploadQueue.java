@@ -0,0 +1,419 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.Screenshot;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.ScreenshotRepository;
+import com.teamlogger.backend.repository.TimeEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Uploads captured screenshots off the capture path and saves their rows in batches
+@Service
+public class ScreenshotUploadQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotUploadQueue.class);
+    
+    // Captures that still need uploading: metadata here, image in a .png beside it
+    private static final String SPILL_SUFFIX = ".properties";
+    
+    // Captures already in the store whose row could not be saved
+    private static final String UPLOADED_SUFFIX = ".uploaded";
+    
+    @Autowired
+    private ScreenshotStore screenshotStore;
+    
+    @Autowired
+    private ScreenshotRepository screenshotRepository;
+    
+    @Autowired
+    private TimeEntryRepository timeEntryRepository;
+    
+    @Value("${screenshot.upload.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${screenshot.upload.workers:4}")
+    private int workerCount;
+    
+    @Value("${screenshot.upload.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${screenshot.upload.initial-backoff:1000}")
+    private long initialBackoff;
+    
+    @Value("${screenshot.upload.spill-dir:screenshot-spill}")
+    private String spillDirectory;
+    
+    // Workers spend most of their time waiting on the store, so they follow the server onto virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    private BlockingQueue<PendingScreenshot> queue;
+    
+    private ExecutorService workers;
+    
+    private Path spillPath;
+    
+    private volatile boolean running;
+    
+    // Uploaded screenshots waiting for the next batched insert
+    private final ConcurrentLinkedQueue<UploadedScreenshot> pendingSaves = new ConcurrentLinkedQueue<>();
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public ScreenshotUploadQueue(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @PostConstruct
+    public void start() throws IOException {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        spillPath = Paths.get(spillDirectory).toAbsolutePath();
+        Files.createDirectories(spillPath);
+        
+        running = true;
+        if (virtualThreads) {
+            workers = Executors.newFixedThreadPool(workerCount, Thread.ofVirtual().name("screenshot-upload-", 1).factory());
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "screenshot-upload-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::processUploads);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        
+        // Keep whatever did not get uploaded for the next start
+        PendingScreenshot pending;
+        while ((pending = queue.poll()) != null) {
+            spill(pending);
+        }
+        flushPendingSaves();
+    }
+    
+    public void submit(PendingScreenshot screenshot) {
+        if (!queue.offer(screenshot)) {
+            logger.warn("Screenshot upload queue full, spilling capture for user {} to disk", screenshot.userId());
+            spill(screenshot);
+        }
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private void processUploads() {
+        while (running) {
+            try {
+                PendingScreenshot pending = queue.take();
+                upload(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in screenshot upload worker", e);
+            }
+        }
+    }
+    
+    private void upload(PendingScreenshot pending) throws InterruptedException {
+        long backoff = initialBackoff;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                ScreenshotStore.StoredScreenshot stored = screenshotStore.store(pending.pngData(), pending.publicId());
+                pendingSaves.add(UploadedScreenshot.of(pending, stored));
+                return;
+            } catch (Exception e) {
+                logger.warn("Screenshot upload attempt {}/{} failed for user {}: {}",
+                        attempt, maxAttempts, pending.userId(), e.getMessage());
+                if (attempt < maxAttempts) {
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        spill(pending);
+                        throw interrupted;
+                    }
+                    backoff *= 2;
+                }
+            }
+        }
+        spill(pending);
+    }
+    
+    private Screenshot toEntity(UploadedScreenshot uploaded, boolean withTimeEntry) {
+        Screenshot screenshot = new Screenshot();
+        // Id-only stubs, so saving does not have to load the user and time entry rows
+        User user = new User();
+        user.setId(uploaded.userId());
+        screenshot.setUser(user);
+        if (withTimeEntry && uploaded.timeEntryId() != null) {
+            TimeEntry timeEntry = new TimeEntry();
+            timeEntry.setId(uploaded.timeEntryId());
+            screenshot.setTimeEntry(timeEntry);
+        }
+        screenshot.setCloudinaryUrl(uploaded.url());
+        screenshot.setCloudinaryPublicId(uploaded.publicId());
+        screenshot.setFileName(uploaded.fileName());
+        screenshot.setFileSize(uploaded.fileSize());
+        screenshot.setImageWidth(uploaded.width());
+        screenshot.setImageHeight(uploaded.height());
+        screenshot.setCapturedAt(uploaded.capturedAt());
+        screenshot.setManual(uploaded.manual());
+        screenshot.setNotes(uploaded.notes());
+        return screenshot;
+    }
+    
+    @Scheduled(fixedDelayString = "${screenshot.upload.flush-interval:5000}")
+    public void flushPendingSaves() {
+        List<UploadedScreenshot> batch = new ArrayList<>();
+        UploadedScreenshot uploaded;
+        while ((uploaded = pendingSaves.poll()) != null) {
+            batch.add(uploaded);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> screenshotRepository.saveAll(
+                    batch.stream().map(screenshot -> toEntity(screenshot, true)).toList()));
+        } catch (Exception e) {
+            // The images are already stored, so every row either gets saved or kept on disk
+            logger.warn("Saving {} screenshots failed, saving them one at a time: {}", batch.size(), e.getMessage());
+            batch.forEach(this::saveOne);
+        }
+    }
+    
+    private void saveOne(UploadedScreenshot uploaded) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> screenshotRepository.save(toEntity(uploaded, true)));
+            return;
+        } catch (Exception e) {
+            try {
+                // A time entry deleted since the capture should not cost the screenshot; it still has its user
+                if (uploaded.timeEntryId() != null && !timeEntryRepository.existsById(uploaded.timeEntryId())) {
+                    transactionTemplate.executeWithoutResult(status -> screenshotRepository.save(toEntity(uploaded, false)));
+                    logger.warn("Saved screenshot {} without its time entry {}, which no longer exists",
+                            uploaded.publicId(), uploaded.timeEntryId());
+                    return;
+                }
+            } catch (Exception retryFailure) {
+                e.addSuppressed(retryFailure);
+            }
+            logger.error("Could not save screenshot {} for user {}, keeping it on disk for the next replay",
+                    uploaded.publicId(), uploaded.userId(), e);
+        }
+        spillUploaded(uploaded);
+    }
+    
+    // Re-queue spilled captures once there is room, and saved-but-unrecorded ones for the next flush.
+    // A file that cannot be read is renamed to .failed so it does not stop the others on every run.
+    @Scheduled(fixedDelayString = "${screenshot.upload.replay-interval:60000}")
+    public void replaySpilled() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath, "*" + UPLOADED_SUFFIX)) {
+            for (Path metadataFile : files) {
+                try {
+                    pendingSaves.add(readUploaded(metadataFile));
+                    Files.deleteIfExists(metadataFile);
+                } catch (Exception e) {
+                    quarantine(metadataFile, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to replay uploaded screenshots", e);
+        }
+        
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath, "*" + SPILL_SUFFIX)) {
+            for (Path metadataFile : files) {
+                if (queue.remainingCapacity() == 0) {
+                    return;
+                }
+                try {
+                    PendingScreenshot pending = readSpilled(metadataFile);
+                    if (queue.offer(pending)) {
+                        Files.deleteIfExists(imageFileFor(metadataFile));
+                        Files.deleteIfExists(metadataFile);
+                    }
+                } catch (Exception e) {
+                    quarantine(metadataFile, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to replay spilled screenshots", e);
+        }
+    }
+    
+    private void spill(PendingScreenshot pending) {
+        String id = UUID.randomUUID().toString();
+        Properties metadata = new Properties();
+        metadata.setProperty("userId", pending.userId().toString());
+        if (pending.timeEntryId() != null) {
+            metadata.setProperty("timeEntryId", pending.timeEntryId().toString());
+        }
+        metadata.setProperty("publicId", pending.publicId());
+        metadata.setProperty("fileName", pending.fileName());
+        metadata.setProperty("width", String.valueOf(pending.width()));
+        metadata.setProperty("height", String.valueOf(pending.height()));
+        metadata.setProperty("capturedAt", pending.capturedAt().toString());
+        metadata.setProperty("manual", String.valueOf(pending.manual()));
+        if (pending.notes() != null) {
+            metadata.setProperty("notes", pending.notes());
+        }
+        
+        try {
+            // Image first, so a metadata file always has its image
+            Files.write(spillPath.resolve(id + ".png"), pending.pngData());
+            writeMetadata(spillPath.resolve(id + SPILL_SUFFIX), metadata);
+        } catch (IOException e) {
+            logger.error("Failed to spill screenshot for user {}, capture lost", pending.userId(), e);
+        }
+    }
+    
+    private void spillUploaded(UploadedScreenshot uploaded) {
+        Properties metadata = new Properties();
+        metadata.setProperty("userId", uploaded.userId().toString());
+        if (uploaded.timeEntryId() != null) {
+            metadata.setProperty("timeEntryId", uploaded.timeEntryId().toString());
+        }
+        metadata.setProperty("url", uploaded.url());
+        metadata.setProperty("publicId", uploaded.publicId());
+        metadata.setProperty("fileName", uploaded.fileName());
+        metadata.setProperty("fileSize", String.valueOf(uploaded.fileSize()));
+        metadata.setProperty("width", String.valueOf(uploaded.width()));
+        metadata.setProperty("height", String.valueOf(uploaded.height()));
+        metadata.setProperty("capturedAt", uploaded.capturedAt().toString());
+        metadata.setProperty("manual", String.valueOf(uploaded.manual()));
+        if (uploaded.notes() != null) {
+            metadata.setProperty("notes", uploaded.notes());
+        }
+        
+        try {
+            writeMetadata(spillPath.resolve(UUID.randomUUID() + UPLOADED_SUFFIX), metadata);
+        } catch (IOException e) {
+            logger.error("Failed to keep screenshot {} for user {}, stored image {} is not recorded",
+                    uploaded.publicId(), uploaded.userId(), uploaded.url(), e);
+        }
+    }
+    
+    // Written under a temporary name and moved into place, so replay never reads a half-written file
+    private static void writeMetadata(Path target, Properties metadata) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            metadata.store(out, null);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static Properties readMetadata(Path metadataFile) throws IOException {
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(metadataFile)) {
+            metadata.load(in);
+        }
+        return metadata;
+    }
+    
+    private PendingScreenshot readSpilled(Path metadataFile) throws IOException {
+        Properties metadata = readMetadata(metadataFile);
+        String timeEntryId = metadata.getProperty("timeEntryId");
+        return new PendingScreenshot(
+                Long.valueOf(metadata.getProperty("userId")),
+                timeEntryId != null ? Long.valueOf(timeEntryId) : null,
+                Files.readAllBytes(imageFileFor(metadataFile)),
+                Integer.parseInt(metadata.getProperty("width")),
+                Integer.parseInt(metadata.getProperty("height")),
+                LocalDateTime.parse(metadata.getProperty("capturedAt")),
+                Boolean.parseBoolean(metadata.getProperty("manual")),
+                metadata.getProperty("notes"),
+                metadata.getProperty("fileName"),
+                metadata.getProperty("publicId")
+        );
+    }
+    
+    private UploadedScreenshot readUploaded(Path metadataFile) throws IOException {
+        Properties metadata = readMetadata(metadataFile);
+        String timeEntryId = metadata.getProperty("timeEntryId");
+        return new UploadedScreenshot(
+                Long.valueOf(metadata.getProperty("userId")),
+                timeEntryId != null ? Long.valueOf(timeEntryId) : null,
+                metadata.getProperty("url"),
+                metadata.getProperty("publicId"),
+                metadata.getProperty("fileName"),
+                Long.parseLong(metadata.getProperty("fileSize")),
+                Integer.parseInt(metadata.getProperty("width")),
+                Integer.parseInt(metadata.getProperty("height")),
+                LocalDateTime.parse(metadata.getProperty("capturedAt")),
+                Boolean.parseBoolean(metadata.getProperty("manual")),
+                metadata.getProperty("notes")
+        );
+    }
+    
+    private void quarantine(Path metadataFile, Exception cause) {
+        logger.error("Could not replay {}, renaming it to .failed", metadataFile, cause);
+        try {
+            Files.move(metadataFile, metadataFile.resolveSibling(metadataFile.getFileName() + ".failed"));
+        } catch (IOException e) {
+            logger.warn("Could not rename {}: {}", metadataFile, e.getMessage());
+        }
+    }
+    
+    private Path imageFileFor(Path metadataFile) {
+        String name = metadataFile.getFileName().toString();
+        return metadataFile.resolveSibling(name.substring(0, name.length() - SPILL_SUFFIX.length()) + ".png");
+    }
+    
+    public record PendingScreenshot(Long userId, Long timeEntryId, byte[] pngData, int width, int height,
+                                    LocalDateTime capturedAt, boolean manual, String notes,
+                                    String fileName, String publicId) {
+    }
+    
+    // Stored in the screenshot store, waiting for its row; the image bytes are no longer needed
+    private record UploadedScreenshot(Long userId, Long timeEntryId, String url, String publicId, String fileName,
+                                      long fileSize, int width, int height, LocalDateTime capturedAt, boolean manual,
+                                      String notes) {
+        
+        static UploadedScreenshot of(PendingScreenshot pending, ScreenshotStore.StoredScreenshot stored) {
+            return new UploadedScreenshot(pending.userId(), pending.timeEntryId(), stored.url(), stored.publicId(),
+                    pending.fileName(), pending.pngData().length, pending.width(), pending.height(),
+                    pending.capturedAt(), pending.manual(), pending.notes());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.Project;
+import com.teamlogger.backend.entity.Task;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.ProjectRepository;
+import com.teamlogger.backend.repository.TaskRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Ranked, prefix-matching search over the MySQL FULLTEXT indexes created in V3__fulltext_search_indexes.sql.
+// With search.fulltext=false (embedded databases) it falls back to an unranked substring match.
+@Service
+public class SearchService {
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private ProjectRepository projectRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${search.fulltext:true}")
+    private boolean fulltext;
+    
+    public Slice<Task> searchTasks(String term, Task.TaskStatus status, Task.TaskPriority priority, Long projectId,
+                                   int page, int size) {
+        String query = fulltext ? toBooleanQuery(term) : toPattern(term);
+        if (query == null) {
+            return emptySlice(page, size);
+        }
+        String statusName = status != null ? status.name() : null;
+        String priorityName = priority != null ? priority.name() : null;
+        Slice<Long> ids = fulltext
+                ? taskRepository.searchIds(query, statusName, priorityName, projectId, PageRequest.of(page, size))
+                : taskRepository.searchIdsByPattern(query, statusName, priorityName, projectId, PageRequest.of(page, size));
+        return inRankOrder(ids, taskRepository::findWithDetailsByIdIn, Task::getId);
+    }
+    
+    public Slice<Project> searchProjects(String term, Project.ProjectStatus status, Project.ProjectPriority priority,
+                                         int page, int size) {
+        String query = fulltext ? toBooleanQuery(term) : toPattern(term);
+        if (query == null) {
+            return emptySlice(page, size);
+        }
+        String statusName = status != null ? status.name() : null;
+        String priorityName = priority != null ? priority.name() : null;
+        Slice<Long> ids = fulltext
+                ? projectRepository.searchIds(query, statusName, priorityName, PageRequest.of(page, size))
+                : projectRepository.searchIdsByPattern(query, statusName, priorityName, PageRequest.of(page, size));
+        return inRankOrder(ids, projectRepository::findWithMembersByIdIn, Project::getId);
+    }
+    
+    public Slice<User> searchUsers(String term, User.UserRole role, Boolean active, int page, int size) {
+        String query = fulltext ? toBooleanQuery(term) : toPattern(term);
+        if (query == null) {
+            return emptySlice(page, size);
+        }
+        String roleName = role != null ? role.name() : null;
+        Slice<Long> ids = fulltext
+                ? userRepository.searchIds(query, roleName, active, PageRequest.of(page, size))
+                : userRepository.searchIdsByPattern(query, roleName, active, PageRequest.of(page, size));
+        return inRankOrder(ids, userRepository::findAllById, User::getId);
+    }
+    
+    // Every word must match, as a prefix; boolean-mode operators in the input are dropped.
+    // Underscore is a word character to the FULLTEXT parser, so "john_doe" stays one word.
+    static String toBooleanQuery(String term) {
+        if (term == null) {
+            return null;
+        }
+        String query = Arrays.stream(term.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}_]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> "+" + word + "*")
+                .collect(Collectors.joining(" "));
+        return query.isEmpty() ? null : query;
+    }
+    
+    // The whole term as a substring, with LIKE wildcards in the input escaped
+    static String toPattern(String term) {
+        if (term == null || term.isBlank()) {
+            return null;
+        }
+        String escaped = term.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+    
+    // Rows are loaded by id in one query, then put back in relevance order
+    private <T> Slice<T> inRankOrder(Slice<Long> ids, Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        if (ids.isEmpty()) {
+            return new SliceImpl<>(List.of(), ids.getPageable(), false);
+        }
+        Map<Long, T> byId = loader.apply(ids.getContent()).stream().collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> ordered = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new SliceImpl<>(ordered, ids.getPageable(), ids.hasNext());
+    }
+    
+    private <T> Slice<T> emptySlice(int page, int size) {
+        return new SliceImpl<>(List.of(), PageRequest.of(page, size), false);
+    }
+}
@@ -0,0 +1,310 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.ArchivedTimeEntry;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.job.TimeEntryArchivalJob;
+import com.teamlogger.backend.repository.ArchivedTimeEntryRepository;
+import com.teamlogger.backend.repository.TimeEntryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Moves closed, approved entries older than the retention window to time_entries_archive, and answers
+// date-range reads from both tables once a range reaches back into archived months
+@Service
+public class TimeEntryArchiveService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TimeEntryArchiveService.class);
+    
+    public static final JobKey ARCHIVAL_JOB_KEY = JobKey.jobKey("time-entry-archival", "maintenance");
+    
+    private static final Comparator<TimeEntry> ENTRY_ORDER =
+            Comparator.comparing(TimeEntry::getPunchInTime).thenComparing(TimeEntry::getId);
+    
+    @Autowired
+    private TimeEntryRepository timeEntryRepository;
+    
+    @Autowired
+    private ArchivedTimeEntryRepository archivedTimeEntryRepository;
+    
+    @Autowired
+    private Scheduler scheduler;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${archive.enabled:true}")
+    private boolean archiveEnabled;
+    
+    // Whole months kept in time_entries before the current one
+    @Value("${archive.retention-months:12}")
+    private int retentionMonths;
+    
+    @Value("${archive.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${archive.cron:0 30 2 * * ?}")
+    private String archiveCron;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    // Latest punch-in time in the archive; raised after each local run, and covered by the cutoff for runs elsewhere
+    private volatile LocalDateTime archivedThrough;
+    
+    public TimeEntryArchiveService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeArchival() {
+        archivedThrough = archivedTimeEntryRepository.findLatestPunchInTime();
+        
+        try {
+            if (!archiveEnabled) {
+                scheduler.deleteJob(ARCHIVAL_JOB_KEY);
+                return;
+            }
+            JobDetail jobDetail = JobBuilder.newJob(TimeEntryArchivalJob.class)
+                    .withIdentity(ARCHIVAL_JOB_KEY)
+                    .storeDurably()
+                    .build();
+            Trigger trigger = TriggerBuilder.newTrigger()
+                    .withIdentity(ARCHIVAL_JOB_KEY.getName(), ARCHIVAL_JOB_KEY.getGroup())
+                    .forJob(jobDetail)
+                    .withSchedule(CronScheduleBuilder.cronSchedule(archiveCron).withMisfireHandlingInstructionFireAndProceed())
+                    .build();
+            // Replacing keeps the stored trigger in line with archive.cron on every node
+            scheduler.scheduleJob(jobDetail, Set.of(trigger), true);
+        } catch (SchedulerException e) {
+            logger.error("Could not schedule time entry archival", e);
+        }
+    }
+    
+    // Called from the Quartz job; each batch is copied and deleted in its own transaction
+    public int archiveClosedEntries() {
+        LocalDateTime cutoff = archiveCutoff();
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = timeEntryRepository.lockArchivableIds(cutoff, batchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int copied = archivedTimeEntryRepository.copyFromTimeEntries(ids);
+                if (copied != ids.size()) {
+                    throw new IllegalStateException("Copied " + copied + " of " + ids.size() + " time entries to the archive");
+                }
+                return timeEntryRepository.deleteByIdIn(ids);
+            });
+            archived += moved;
+        } while (moved == batchSize);
+        
+        archivedThrough = archivedTimeEntryRepository.findLatestPunchInTime();
+        logger.info("Archived {} time entries punched in before {}", archived, cutoff);
+        return archived;
+    }
+    
+    public List<TimeEntry> findUserTimeEntriesInDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        List<TimeEntry> entries = timeEntryRepository.findUserTimeEntriesInDateRange(userId, startDate, endDate);
+        if (!reachesArchive(startDate)) {
+            return entries;
+        }
+        List<TimeEntry> merged = new ArrayList<>(entries);
+        archivedTimeEntryRepository.findUserEntriesInDateRange(userId, startDate, endDate)
+                .forEach(entry -> merged.add(entry.toTimeEntry()));
+        merged.sort(ENTRY_ORDER);
+        return merged;
+    }
+    
+    public List<TimeEntry> findRecentTimeEntries(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        List<TimeEntry> entries = timeEntryRepository.findRecentTimeEntries(userId, startDate, endDate);
+        if (!reachesArchive(startDate)) {
+            return entries;
+        }
+        List<TimeEntry> merged = new ArrayList<>(entries);
+        archivedTimeEntryRepository.findUserEntriesInDateRange(userId, startDate, endDate)
+                .forEach(entry -> merged.add(entry.toTimeEntry()));
+        merged.sort(ENTRY_ORDER.reversed());
+        return merged;
+    }
+    
+    // Both tables are paged with the same (punchInTime, id) keyset, so the first size entries of the two pages are the page
+    public Slice<TimeEntry> findUserTimeEntriesInDateRangeAfter(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                                                LocalDateTime afterTime, Long afterId, int size) {
+        PageRequest pageRequest = PageRequest.of(0, size);
+        Slice<TimeEntry> entries = timeEntryRepository.findUserTimeEntriesInDateRangeAfter(userId, startDate, endDate,
+                afterTime, afterId, pageRequest);
+        if (!reachesArchive(afterTime)) {
+            return entries;
+        }
+        Slice<ArchivedTimeEntry> archived = archivedTimeEntryRepository.findUserEntriesInDateRangeAfter(userId, startDate,
+                endDate, afterTime, afterId, pageRequest);
+        List<TimeEntry> merged = new ArrayList<>(entries.getContent());
+        archived.forEach(entry -> merged.add(entry.toTimeEntry()));
+        merged.sort(ENTRY_ORDER);
+        boolean hasNext = merged.size() > size || entries.hasNext() || archived.hasNext();
+        return new SliceImpl<>(merged.subList(0, Math.min(size, merged.size())), pageRequest, hasNext);
+    }
+    
+    public Long countTimeEntriesForUserInDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        Long count = timeEntryRepository.countTimeEntriesForUserInDateRange(userId, startDate, endDate);
+        if (!reachesArchive(startDate)) {
+            return count;
+        }
+        Long archived = archivedTimeEntryRepository.countUserEntriesInDateRange(userId, startDate, endDate);
+        return (count != null ? count : 0L) + (archived != null ? archived : 0L);
+    }
+    
+    public List<TimeEntry> findOvertimeEntriesInDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        List<TimeEntry> entries = timeEntryRepository.findOvertimeEntriesInDateRange(startDate, endDate);
+        if (!reachesArchive(startDate)) {
+            return entries;
+        }
+        List<TimeEntry> merged = new ArrayList<>(entries);
+        archivedTimeEntryRepository.findOvertimeEntriesInDateRange(startDate, endDate)
+                .forEach(entry -> merged.add(entry.toTimeEntry()));
+        merged.sort(ENTRY_ORDER);
+        return merged;
+    }
+    
+    // Must be consumed inside a transaction. MySQL allows one streaming result per connection, so the archived
+    // months are merged with the few live entries left in them first, and the live stream is opened afterwards.
+    public Stream<TimeEntry> streamUserTimeEntriesInDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (!reachesArchive(startDate)) {
+            return timeEntryRepository.streamUserTimeEntriesInDateRange(userId, startDate, endDate);
+        }
+        LocalDateTime horizon = archiveHorizon();
+        LocalDateTime archivedEnd = endDate.isBefore(horizon) ? endDate : horizon.minusNanos(1000);
+        
+        List<TimeEntry> olderLive = timeEntryRepository.findUserTimeEntriesInDateRange(userId, startDate, archivedEnd);
+        Stream<TimeEntry> archived = archivedTimeEntryRepository.streamUserEntriesInDateRange(userId, startDate, archivedEnd)
+                .map(entry -> {
+                    entityManager.detach(entry);
+                    return entry.toTimeEntry();
+                });
+        Supplier<Stream<TimeEntry>> newer = archivedEnd.isBefore(endDate)
+                ? () -> timeEntryRepository.streamUserTimeEntriesInDateRange(userId, horizon, endDate)
+                : Stream::empty;
+        
+        SpanningIterator rows = new SpanningIterator(archived, olderLive.iterator(), newer);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+                .onClose(rows::close);
+    }
+    
+    private boolean reachesArchive(LocalDateTime startDate) {
+        return startDate.isBefore(archiveHorizon());
+    }
+    
+    // Every archived entry punched in before this
+    private LocalDateTime archiveHorizon() {
+        LocalDateTime cutoff = archiveCutoff();
+        LocalDateTime latest = archivedThrough;
+        return latest != null && !latest.isBefore(cutoff) ? latest.plusNanos(1000) : cutoff;
+    }
+    
+    private LocalDateTime archiveCutoff() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths).atStartOfDay();
+    }
+    
+    // Merges two (punchInTime, id) ordered sources, then continues with a third opened only once both are drained
+    private static class SpanningIterator implements Iterator<TimeEntry> {
+        
+        private final Stream<TimeEntry> archivedStream;
+        
+        private final Iterator<TimeEntry> archived;
+        
+        private final Iterator<TimeEntry> live;
+        
+        private final Supplier<Stream<TimeEntry>> newer;
+        
+        private TimeEntry nextArchived;
+        
+        private TimeEntry nextLive;
+        
+        private Stream<TimeEntry> newerStream;
+        
+        private Iterator<TimeEntry> newerRows;
+        
+        SpanningIterator(Stream<TimeEntry> archivedStream, Iterator<TimeEntry> live, Supplier<Stream<TimeEntry>> newer) {
+            this.archivedStream = archivedStream;
+            this.archived = archivedStream.iterator();
+            this.live = live;
+            this.newer = newer;
+            this.nextArchived = archived.hasNext() ? archived.next() : null;
+            this.nextLive = live.hasNext() ? live.next() : null;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (nextArchived != null || nextLive != null) {
+                return true;
+            }
+            if (newerRows == null) {
+                archivedStream.close();
+                newerStream = newer.get();
+                newerRows = newerStream.iterator();
+            }
+            return newerRows.hasNext();
+        }
+        
+        @Override
+        public TimeEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextArchived == null && nextLive == null) {
+                return newerRows.next();
+            }
+            TimeEntry entry;
+            if (nextLive == null || (nextArchived != null && ENTRY_ORDER.compare(nextArchived, nextLive) < 0)) {
+                entry = nextArchived;
+                nextArchived = archived.hasNext() ? archived.next() : null;
+            } else {
+                entry = nextLive;
+                nextLive = live.hasNext() ? live.next() : null;
+            }
+            return entry;
+        }
+        
+        void close() {
+            archivedStream.close();
+            if (newerStream != null) {
+                newerStream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.DailyTimeRollup;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.repository.ArchivedTimeEntryRepository;
+import com.teamlogger.backend.repository.DailyTimeRollupRepository;
+import com.teamlogger.backend.repository.TimeEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class TimeRollupService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TimeRollupService.class);
+    
+    // DailyTimeRollupRepository.applyDelta with positional parameters, for JDBC batches
+    private static final String APPLY_DELTA_SQL = "INSERT INTO daily_time_rollups (user_id, project_id, rollup_date, " +
+            "total_work_hours, overtime_hours, entry_count, updated_at) VALUES (?, ?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE total_work_hours = total_work_hours + VALUES(total_work_hours), " +
+            "overtime_hours = overtime_hours + VALUES(overtime_hours), " +
+            "entry_count = entry_count + VALUES(entry_count), updated_at = NOW()";
+    
+    @Autowired
+    private DailyTimeRollupRepository rollupRepository;
+    
+    @Autowired
+    private TimeEntryRepository timeEntryRepository;
+    
+    @Autowired
+    private ArchivedTimeEntryRepository archivedTimeEntryRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DashboardStreamService dashboardStreamService;
+    
+    // Seed the rollup table from existing entries the first time it is deployed
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeRollups() {
+        if (rollupRepository.count() == 0
+                && (timeEntryRepository.count() > 0 || archivedTimeEntryRepository.count() > 0)) {
+            int rows = rollupRepository.rebuildFromTimeEntries();
+            logger.info("Built {} daily time rollup rows from existing time entries", rows);
+        }
+    }
+    
+    @Transactional
+    public void rebuild() {
+        rollupRepository.deleteAllInBatch();
+        rollupRepository.rebuildFromTimeEntries();
+    }
+    
+    @Transactional
+    public void recordEntryCreated(TimeEntry entry) {
+        applyDelta(entry, valueOf(entry.getTotalWorkHours()), valueOf(entry.getOvertimeHours()), 1);
+    }
+    
+    @Transactional
+    public void recordEntryUpdated(TimeEntry entry, Double previousWorkHours, Double previousOvertimeHours) {
+        double workDelta = valueOf(entry.getTotalWorkHours()) - valueOf(previousWorkHours);
+        double overtimeDelta = valueOf(entry.getOvertimeHours()) - valueOf(previousOvertimeHours);
+        if (workDelta != 0 || overtimeDelta != 0) {
+            applyDelta(entry, workDelta, overtimeDelta, 0);
+        }
+    }
+    
+    @Transactional
+    public void recordEntryDeleted(TimeEntry entry) {
+        applyDelta(entry, -valueOf(entry.getTotalWorkHours()), -valueOf(entry.getOvertimeHours()), -1);
+    }
+    
+    // Batched recordEntryCreated/recordEntryUpdated: deltas are summed per rollup row and sent as one JDBC batch
+    @Transactional
+    public void recordEntryChanges(List<EntryChange> changes) {
+        Map<RollupKey, double[]> deltas = new LinkedHashMap<>();
+        for (EntryChange change : changes) {
+            TimeEntry entry = change.entry();
+            if (entry.getUser() == null || entry.getPunchInTime() == null) {
+                continue;
+            }
+            double workDelta = valueOf(entry.getTotalWorkHours()) - valueOf(change.previousWorkHours());
+            double overtimeDelta = valueOf(entry.getOvertimeHours()) - valueOf(change.previousOvertimeHours());
+            if (workDelta == 0 && overtimeDelta == 0 && !change.created()) {
+                continue;
+            }
+            Long projectId = entry.getProject() != null ? entry.getProject().getId() : DailyTimeRollup.NO_PROJECT;
+            double[] delta = deltas.computeIfAbsent(
+                    new RollupKey(entry.getUser().getId(), projectId, entry.getPunchInTime().toLocalDate()), key -> new double[3]);
+            delta[0] += workDelta;
+            delta[1] += overtimeDelta;
+            delta[2] += change.created() ? 1 : 0;
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> batch.add(new Object[]{key.userId(), key.projectId(), key.rollupDate(),
+                delta[0], delta[1], (long) delta[2]}));
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, batch);
+        usersChanged(deltas.keySet().stream().map(RollupKey::userId).distinct().toList());
+    }
+    
+    public Double getTotalHours(Long userId, LocalDate startDate, LocalDate endDate) {
+        Double hours = rollupRepository.sumWorkHoursForUserInDateRange(userId, startDate, endDate);
+        return hours != null ? hours : 0.0;
+    }
+    
+    public Map<LocalDate, Double> getDailyHours(Long userId, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, Double> dailyHours = new TreeMap<>();
+        for (Object[] row : rollupRepository.sumWorkHoursByDayForUserInDateRange(userId, startDate, endDate)) {
+            dailyHours.put((LocalDate) row[0], row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
+        }
+        return dailyHours;
+    }
+    
+    public Map<Long, Double> getHoursByUser(LocalDate startDate, LocalDate endDate) {
+        Map<Long, Double> hoursByUser = new HashMap<>();
+        for (Object[] row : rollupRepository.sumWorkHoursByUserInDateRange(startDate, endDate)) {
+            hoursByUser.put((Long) row[0], row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
+        }
+        return hoursByUser;
+    }
+    
+    public Double getOvertimeHours(Long userId, LocalDate startDate, LocalDate endDate) {
+        Double hours = rollupRepository.sumOvertimeForUserInDateRange(userId, startDate, endDate);
+        return hours != null ? hours : 0.0;
+    }
+    
+    public Double getAverageHoursPerEntry(Long userId, LocalDate startDate, LocalDate endDate) {
+        Double hours = rollupRepository.averageHoursPerEntryForUserInDateRange(userId, startDate, endDate);
+        return hours != null ? hours : 0.0;
+    }
+    
+    private void applyDelta(TimeEntry entry, double workHours, double overtimeHours, long entryCount) {
+        if (entry.getUser() == null || entry.getPunchInTime() == null) {
+            return;
+        }
+        
+        Long projectId = entry.getProject() != null ? entry.getProject().getId() : DailyTimeRollup.NO_PROJECT;
+        rollupRepository.applyDelta(entry.getUser().getId(), projectId, entry.getPunchInTime().toLocalDate(),
+                workHours, overtimeHours, entryCount);
+        usersChanged(List.of(entry.getUser().getId()));
+    }
+    
+    // Streams re-read the rollups on their own connection, so they are only told once the new hours are committed
+    private void usersChanged(Collection<Long> userIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userIds.forEach(dashboardStreamService::timeEntriesChanged);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userIds.forEach(dashboardStreamService::timeEntriesChanged);
+            }
+        });
+    }
+    
+    private static double valueOf(Double hours) {
+        return hours != null ? hours : 0.0;
+    }
+    
+    // Previous hours are null for a created entry
+    public record EntryChange(TimeEntry entry, Double previousWorkHours, Double previousOvertimeHours, boolean created) {
+    }
+    
+    private record RollupKey(Long userId, Long projectId, LocalDate rollupDate) {
+    }
+}
\ No newline at end of file
@@ -10,12 +10,14 @@ import com.teamlogger.backend.repository.UserRepository;
 import com.teamlogger.backend.repository.ProjectRepository;
 import com.teamlogger.backend.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class TimeTrackingService {
@@ -35,10 +37,35 @@ public class TimeTrackingService {
     @Autowired
     private ScreenshotService screenshotService;
     
+    @Autowired
+    private TimeRollupService timeRollupService;
+    
+    @Autowired
+    private TimeEntryArchiveService timeEntryArchiveService;
+    
+    @Autowired
+    private PunchLogService punchLogService;
+    
+    @Autowired
+    private ActiveTimeEntryIndex activeTimeEntryIndex;
+    
+    // Not @Transactional on the methods: the punch log path must not hold a connection
+    private final TransactionTemplate transactionTemplate;
+    
+    public TimeTrackingService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
     public TimeEntry punchIn(Long userId, Long projectId, Long taskId, String notes) {
+        if (punchLogService.isEnabled()) {
+            TimeEntry entry = punchLogService.punchIn(userId, projectId, taskId, notes);
+            // The entry has no id until it is written; PunchLogService hands it to the session then
+            screenshotService.startScreenshotCapture(userId, entry.getId());
+            return entry;
+        }
+        
         // Check if user already has an active time entry
-        Optional<TimeEntry> activeEntry = timeEntryRepository.findByUserIdAndIsActiveTrue(userId);
-        if (activeEntry.isPresent()) {
+        if (activeTimeEntryIndex.get(userId) != null) {
             throw new RuntimeException("User already has an active time entry");
         }
         
@@ -48,7 +75,7 @@ public class TimeTrackingService {
         TimeEntry timeEntry = new TimeEntry();
         timeEntry.setUser(user);
         timeEntry.setPunchInTime(LocalDateTime.now());
-        timeEntry.setIsActive(true);
+        timeEntry.setActive(true);
         timeEntry.setNotes(notes);
         
         if (projectId != null) {
@@ -63,7 +90,8 @@ public class TimeTrackingService {
             timeEntry.setTask(task);
         }
         
-        TimeEntry savedEntry = timeEntryRepository.save(timeEntry);
+        TimeEntry savedEntry = saveCreated(timeEntry);
+        activeTimeEntryIndex.put(savedEntry);
         
         // Start screenshot capture for this time entry
         screenshotService.startScreenshotCapture(userId, savedEntry.getId());
@@ -72,11 +100,18 @@ public class TimeTrackingService {
     }
     
     public TimeEntry punchOut(Long userId, String notes) {
-        TimeEntry timeEntry = timeEntryRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new RuntimeException("No active time entry found"));
+        if (punchLogService.isEnabled()) {
+            TimeEntry entry = punchLogService.punchOut(userId, notes);
+            screenshotService.stopScreenshotCapture(userId);
+            return entry;
+        }
+        
+        TimeEntry timeEntry = loadActiveEntry(userId);
+        Double previousWorkHours = timeEntry.getTotalWorkHours();
+        Double previousOvertimeHours = timeEntry.getOvertimeHours();
         
         timeEntry.setPunchOutTime(LocalDateTime.now());
-        timeEntry.setIsActive(false);
+        timeEntry.setActive(false);
         if (notes != null) {
             timeEntry.setNotes(timeEntry.getNotes() != null ? 
                     timeEntry.getNotes() + "\n" + notes : notes);
@@ -87,24 +122,44 @@ public class TimeTrackingService {
         // Stop screenshot capture
         screenshotService.stopScreenshotCapture(userId);
         
-        return timeEntryRepository.save(timeEntry);
+        TimeEntry savedEntry = saveUpdated(timeEntry, previousWorkHours, previousOvertimeHours);
+        TimeEntry closedEntry = activeTimeEntryIndex.copyOf(savedEntry);
+        activeTimeEntryIndex.remove(userId);
+        return closedEntry;
     }
     
     public TimeEntry startLunch(Long userId) {
-        TimeEntry timeEntry = timeEntryRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new RuntimeException("No active time entry found"));
+        if (punchLogService.isEnabled()) {
+            return punchLogService.startLunch(userId);
+        }
+        
+        TimeEntry timeEntry = activeTimeEntryIndex.get(userId);
+        if (timeEntry == null) {
+            throw new RuntimeException("No active time entry found");
+        }
         
         if (timeEntry.getLunchInTime() != null) {
             throw new RuntimeException("Lunch already started");
         }
         
-        timeEntry.setLunchInTime(LocalDateTime.now());
-        return timeEntryRepository.save(timeEntry);
+        LocalDateTime now = LocalDateTime.now();
+        if (timeEntryRepository.startLunch(timeEntry.getId(), now) == 0) {
+            activeTimeEntryIndex.reload(userId);
+            throw new RuntimeException("Time entry changed, please try again");
+        }
+        // The update succeeded, so the row is the snapshot with these two columns changed
+        timeEntry.setLunchInTime(now);
+        timeEntry.setUpdatedAt(now);
+        activeTimeEntryIndex.put(timeEntry);
+        return timeEntry;
     }
     
     public TimeEntry endLunch(Long userId) {
-        TimeEntry timeEntry = timeEntryRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new RuntimeException("No active time entry found"));
+        if (punchLogService.isEnabled()) {
+            return punchLogService.endLunch(userId);
+        }
+        
+        TimeEntry timeEntry = loadActiveEntry(userId);
         
         if (timeEntry.getLunchInTime() == null) {
             throw new RuntimeException("Lunch not started");
@@ -114,26 +169,47 @@ public class TimeTrackingService {
             throw new RuntimeException("Lunch already ended");
         }
         
+        Double previousWorkHours = timeEntry.getTotalWorkHours();
+        Double previousOvertimeHours = timeEntry.getOvertimeHours();
         timeEntry.setLunchOutTime(LocalDateTime.now());
         timeEntry.calculateHours();
-        return timeEntryRepository.save(timeEntry);
+        
+        TimeEntry savedEntry = saveUpdated(timeEntry, previousWorkHours, previousOvertimeHours);
+        activeTimeEntryIndex.put(savedEntry);
+        return activeTimeEntryIndex.get(userId);
     }
     
     public TimeEntry startBreak(Long userId) {
-        TimeEntry timeEntry = timeEntryRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new RuntimeException("No active time entry found"));
+        if (punchLogService.isEnabled()) {
+            return punchLogService.startBreak(userId);
+        }
+        
+        TimeEntry timeEntry = activeTimeEntryIndex.get(userId);
+        if (timeEntry == null) {
+            throw new RuntimeException("No active time entry found");
+        }
         
         if (timeEntry.getBreakStartTime() != null && timeEntry.getBreakEndTime() == null) {
             throw new RuntimeException("Break already started");
         }
         
-        timeEntry.setBreakStartTime(LocalDateTime.now());
-        return timeEntryRepository.save(timeEntry);
+        LocalDateTime now = LocalDateTime.now();
+        if (timeEntryRepository.startBreak(timeEntry.getId(), now) == 0) {
+            activeTimeEntryIndex.reload(userId);
+            throw new RuntimeException("Time entry changed, please try again");
+        }
+        timeEntry.setBreakStartTime(now);
+        timeEntry.setUpdatedAt(now);
+        activeTimeEntryIndex.put(timeEntry);
+        return timeEntry;
     }
     
     public TimeEntry endBreak(Long userId) {
-        TimeEntry timeEntry = timeEntryRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new RuntimeException("No active time entry found"));
+        if (punchLogService.isEnabled()) {
+            return punchLogService.endBreak(userId);
+        }
+        
+        TimeEntry timeEntry = loadActiveEntry(userId);
         
         if (timeEntry.getBreakStartTime() == null) {
             throw new RuntimeException("Break not started");
@@ -143,9 +219,14 @@ public class TimeTrackingService {
             throw new RuntimeException("Break already ended");
         }
         
+        Double previousWorkHours = timeEntry.getTotalWorkHours();
+        Double previousOvertimeHours = timeEntry.getOvertimeHours();
         timeEntry.setBreakEndTime(LocalDateTime.now());
         timeEntry.calculateHours();
-        return timeEntryRepository.save(timeEntry);
+        
+        TimeEntry savedEntry = saveUpdated(timeEntry, previousWorkHours, previousOvertimeHours);
+        activeTimeEntryIndex.put(savedEntry);
+        return activeTimeEntryIndex.get(userId);
     }
     
     public TimeEntry createManualEntry(TimeEntryDto timeEntryDto) {
@@ -161,8 +242,8 @@ public class TimeTrackingService {
         timeEntry.setBreakStartTime(timeEntryDto.getBreakStartTime());
         timeEntry.setBreakEndTime(timeEntryDto.getBreakEndTime());
         timeEntry.setNotes(timeEntryDto.getNotes());
-        timeEntry.setIsManualEntry(true);
-        timeEntry.setIsActive(false);
+        timeEntry.setManualEntry(true);
+        timeEntry.setActive(false);
         
         if (timeEntryDto.getProjectId() != null) {
             Project project = projectRepository.findById(timeEntryDto.getProjectId())
@@ -177,35 +258,30 @@ public class TimeTrackingService {
         }
         
         timeEntry.calculateHours();
-        return timeEntryRepository.save(timeEntry);
+        return saveCreated(timeEntry);
     }
     
-    public List<TimeEntry> getUserTimeEntries(Long userId, LocalDate startDate, LocalDate endDate) {
+    // Without a cursor the page starts at the beginning of the range
+    public Slice<TimeEntry> getUserTimeEntries(Long userId, LocalDate startDate, LocalDate endDate,
+                                               LocalDateTime afterTime, Long afterId, int size) {
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
         
-        return timeEntryRepository.findUserTimeEntriesInDateRange(userId, startDateTime, endDateTime);
+        return timeEntryArchiveService.findUserTimeEntriesInDateRangeAfter(userId, startDateTime, endDateTime,
+                afterTime != null ? afterTime : startDateTime, afterId != null ? afterId : 0L, size);
     }
     
     public Double getUserTotalHours(Long userId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        Double totalHours = timeEntryRepository.calculateTotalHoursForUserInDateRange(userId, startDateTime, endDateTime);
-        return totalHours != null ? totalHours : 0.0;
+        return timeRollupService.getTotalHours(userId, startDate, endDate);
     }
     
     public Double getUserOvertimeHours(Long userId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        Double overtimeHours = timeEntryRepository.calculateTotalOvertimeForUserInDateRange(userId, startDateTime, endDateTime);
-        return overtimeHours != null ? overtimeHours : 0.0;
+        return timeRollupService.getOvertimeHours(userId, startDate, endDate);
     }
     
+    // Served from the index, names included, so polling never queries time_entries
     public TimeEntry getCurrentTimeEntry(Long userId) {
-        return timeEntryRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElse(null);
+        return activeTimeEntryIndex.get(userId);
     }
     
     public List<TimeEntry> getPendingApprovalTimeEntries(Long userId) {
@@ -219,7 +295,7 @@ public class TimeTrackingService {
         TimeEntry timeEntry = timeEntryRepository.findById(timeEntryId)
                 .orElseThrow(() -> new RuntimeException("Time entry not found"));
         
-        timeEntry.setIsApproved(true);
+        timeEntry.setApproved(true);
         timeEntry.setApprovedBy(approvedBy);
         timeEntry.setApprovedAt(LocalDateTime.now());
         
@@ -230,10 +306,45 @@ public class TimeTrackingService {
         TimeEntry timeEntry = timeEntryRepository.findById(timeEntryId)
                 .orElseThrow(() -> new RuntimeException("Time entry not found"));
         
-        if (timeEntry.getIsActive()) {
+        if (timeEntry.isActive()) {
             throw new RuntimeException("Cannot delete active time entry");
         }
         
-        timeEntryRepository.delete(timeEntry);
+        transactionTemplate.executeWithoutResult(status -> {
+            timeEntryRepository.delete(timeEntry);
+            timeRollupService.recordEntryDeleted(timeEntry);
+        });
+    }
+    
+    // The entry and its rollup commit together, so a failure in between cannot leave the rollup off for good
+    private TimeEntry saveCreated(TimeEntry timeEntry) {
+        return transactionTemplate.execute(status -> {
+            TimeEntry savedEntry = timeEntryRepository.save(timeEntry);
+            timeRollupService.recordEntryCreated(savedEntry);
+            return savedEntry;
+        });
+    }
+    
+    private TimeEntry saveUpdated(TimeEntry timeEntry, Double previousWorkHours, Double previousOvertimeHours) {
+        return transactionTemplate.execute(status -> {
+            TimeEntry savedEntry = timeEntryRepository.save(timeEntry);
+            timeRollupService.recordEntryUpdated(savedEntry, previousWorkHours, previousOvertimeHours);
+            return savedEntry;
+        });
+    }
+    
+    // The index answers whether there is an open entry; the row is read by id only when it is about to change
+    private TimeEntry loadActiveEntry(Long userId) {
+        TimeEntry indexed = activeTimeEntryIndex.get(userId);
+        if (indexed == null) {
+            throw new RuntimeException("No active time entry found");
+        }
+        
+        return timeEntryRepository.findById(indexed.getId())
+                .filter(TimeEntry::isActive)
+                .orElseThrow(() -> {
+                    activeTimeEntryIndex.reload(userId);
+                    return new RuntimeException("No active time entry found");
+                });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.teamlogger.backend.service;
+
+import com.teamlogger.backend.entity.TimeEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+// Writes timesheets row by row from a database stream, so memory use does not depend on the date range
+@Service
+public class TimesheetExportService {
+    
+    @Autowired
+    private TimeEntryArchiveService timeEntryArchiveService;
+    
+    @Autowired
+    private TimesheetWriter timesheetWriter;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final TransactionTemplate readOnlyTransaction;
+    
+    public TimesheetExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    public enum ExportFormat {
+        EXCEL, PDF, CSV
+    }
+    
+    public void exportTimesheet(Long userId, LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream out) {
+        exportTimesheet(userId, startDate, endDate, format, out, rowsWritten -> { });
+    }
+    
+    // The listener gets the running row count, for callers that report progress
+    public void exportTimesheet(Long userId, LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream out,
+                                LongConsumer progressListener) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        
+        // The stream needs an open connection until the last row is written
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<TimeEntry> entries = timeEntryArchiveService.streamUserTimeEntriesInDateRange(userId, startDateTime, endDateTime)) {
+                // Associations are fetch-joined, so entries can leave the persistence context right away
+                AtomicLong rowsRead = new AtomicLong();
+                Iterator<TimeEntry> rows = entries
+                        .peek(entityManager::detach)
+                        .peek(entry -> progressListener.accept(rowsRead.incrementAndGet()))
+                        .iterator();
+                timesheetWriter.write(rows, startDate, endDate, format, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write timesheet export", e);
+            }
+        });
+    }
+}
\ No newline at end of file
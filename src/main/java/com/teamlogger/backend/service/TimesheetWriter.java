@@ -0,0 +1,141 @@
+package com.teamlogger.backend.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.opencsv.CSVWriter;
+import com.teamlogger.backend.entity.TimeEntry;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+// Renders timesheet rows in each export format; kept free of persistence so it can run on any row source
+@Component
+public class TimesheetWriter {
+    
+    private static final String[] HEADERS = {
+            "Date", "Punch In", "Punch Out", "Project", "Task", "Work Hours",
+            "Break Hours", "Lunch Hours", "Overtime Hours", "Approved", "Notes"
+    };
+    
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    // Rows kept in memory by the streaming workbook before they are flushed to a temp file
+    private static final int EXCEL_ROW_WINDOW = 100;
+    
+    // Rows buffered by the PDF table before they are written out
+    private static final int PDF_FLUSH_ROWS = 200;
+    
+    public void write(Iterator<TimeEntry> entries, LocalDate startDate, LocalDate endDate,
+                      TimesheetExportService.ExportFormat format, OutputStream out) throws IOException {
+        switch (format) {
+            case EXCEL -> writeExcel(entries, startDate, endDate, out);
+            case PDF -> writePdf(entries, startDate, endDate, out);
+            case CSV -> writeCsv(entries, out);
+        }
+    }
+    
+    private void writeExcel(Iterator<TimeEntry> entries, LocalDate startDate, LocalDate endDate, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        try {
+            Sheet sheet = workbook.createSheet("Timesheet " + startDate + " to " + endDate);
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                header.createCell(i).setCellValue(HEADERS[i]);
+            }
+            
+            int rowIndex = 1;
+            while (entries.hasNext()) {
+                String[] values = toRow(entries.next());
+                Row row = sheet.createRow(rowIndex++);
+                for (int i = 0; i < values.length; i++) {
+                    if (i >= 5 && i <= 8) {
+                        row.createCell(i).setCellValue(Double.parseDouble(values[i]));
+                    } else {
+                        row.createCell(i).setCellValue(values[i]);
+                    }
+                }
+            }
+            
+            workbook.write(out);
+        } finally {
+            workbook.close();
+            workbook.dispose();
+        }
+    }
+    
+    private void writePdf(Iterator<TimeEntry> entries, LocalDate startDate, LocalDate endDate, OutputStream out) {
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+        pdf.setCloseWriter(false);
+        try (Document document = new Document(pdf)) {
+            document.add(new Paragraph("Timesheet " + startDate + " to " + endDate));
+            
+            // Large-table mode lets rows be flushed to the document as they are added
+            Table table = new Table(HEADERS.length, true);
+            document.add(table);
+            for (String headerValue : HEADERS) {
+                table.addHeaderCell(new Cell().add(new Paragraph(headerValue)));
+            }
+            
+            int rows = 0;
+            while (entries.hasNext()) {
+                for (String value : toRow(entries.next())) {
+                    table.addCell(new Cell().add(new Paragraph(value)));
+                }
+                if (++rows % PDF_FLUSH_ROWS == 0) {
+                    table.flush();
+                }
+            }
+            table.complete();
+        }
+    }
+    
+    private void writeCsv(Iterator<TimeEntry> entries, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        CSVWriter csvWriter = new CSVWriter(writer);
+        csvWriter.writeNext(HEADERS);
+        while (entries.hasNext()) {
+            csvWriter.writeNext(toRow(entries.next()));
+        }
+        // Flush but leave the response stream for the container to close
+        csvWriter.flush();
+    }
+    
+    private String[] toRow(TimeEntry entry) {
+        return new String[] {
+                entry.getPunchInTime().toLocalDate().toString(),
+                format(entry.getPunchInTime()),
+                format(entry.getPunchOutTime()),
+                entry.getProject() != null ? entry.getProject().getName() : "",
+                entry.getTask() != null ? entry.getTask().getTitle() : "",
+                String.valueOf(hours(entry.getTotalWorkHours())),
+                String.valueOf(hours(entry.getTotalBreakHours())),
+                String.valueOf(hours(entry.getTotalLunchHours())),
+                String.valueOf(hours(entry.getOvertimeHours())),
+                entry.isApproved() ? "Yes" : "No",
+                entry.getNotes() != null ? entry.getNotes() : ""
+        };
+    }
+    
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(TIME_FORMAT) : "";
+    }
+    
+    private static double hours(Double hours) {
+        return hours != null ? hours : 0.0;
+    }
+}
\ No newline at end of file
@@ -3,7 +3,10 @@ package com.teamlogger.backend.service;
 import com.teamlogger.backend.dto.UserDto;
 import com.teamlogger.backend.entity.User;
 import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.backend.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,6 +30,12 @@ public class UserService implements UserDetailsService {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
@@ -49,8 +58,8 @@ public class UserService implements UserDetailsService {
         user.setFirstName(userDto.getFirstName());
         user.setLastName(userDto.getLastName());
         user.setRole(userDto.getRole() != null ? userDto.getRole() : User.UserRole.USER);
-        user.setIsActive(true);
-        user.setIsOnline(false);
+        user.setActive(true);
+        user.setOnline(false);
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
         
@@ -73,8 +82,10 @@ public class UserService implements UserDetailsService {
             }
             user.setEmail(userDto.getEmail());
         }
-        if (userDto.getRole() != null) {
+        boolean revoke = false;
+        if (userDto.getRole() != null && userDto.getRole() != user.getRole()) {
             user.setRole(userDto.getRole());
+            revoke = true;
         }
         if (userDto.getTimezone() != null) {
             user.setTimezone(userDto.getTimezone());
@@ -87,7 +98,7 @@ public class UserService implements UserDetailsService {
         }
         
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        return revoke ? revokeTokens(user) : userRepository.save(user);
     }
     
     public void changePassword(Long userId, String currentPassword, String newPassword) {
@@ -100,7 +111,7 @@ public class UserService implements UserDetailsService {
         
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        revokeTokens(user);
     }
     
     public void initiatePasswordReset(String email) {
@@ -128,22 +139,24 @@ public class UserService implements UserDetailsService {
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
         user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        revokeTokens(user);
     }
     
     public void updateOnlineStatus(Long userId, boolean isOnline) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        user.setIsOnline(isOnline);
+        // Tracked in memory; PresenceService writes users.is_online in batches
         if (isOnline) {
-            user.setLastLogin(LocalDateTime.now());
+            presenceService.login(userId);
+        } else {
+            presenceService.markOffline(userId);
         }
-        userRepository.save(user);
     }
     
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public void heartbeat(Long userId) {
+        presenceService.heartbeat(userId);
+    }
+    
+    public Slice<User> getUsers(Long afterId, int size) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId != null ? afterId : 0L, PageRequest.of(0, size));
     }
     
     public List<User> getActiveUsers() {
@@ -154,30 +167,37 @@ public class UserService implements UserDetailsService {
         return userRepository.findByRole(role);
     }
     
-    public List<User> searchUsers(String searchTerm) {
-        return userRepository.searchUsers(searchTerm);
-    }
-    
     public void deactivateUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        user.setIsActive(false);
-        user.setIsOnline(false);
+        user.setActive(false);
+        user.setOnline(false);
         user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
+        revokeTokens(user);
+        presenceService.markOffline(userId);
+    }
+    
+    // Invalidates every JWT issued so far and saves the user. The registry is only updated once the new version
+    // is stored; other nodes pick it up within jwt.version-check-interval
+    public User revokeTokens(User user) {
+        int version = (user.getTokenVersion() != null ? user.getTokenVersion() : 0) + 1;
+        user.setTokenVersion(version);
+        User savedUser = userRepository.save(user);
+        tokenVersionRegistry.setVersion(savedUser.getId(), version);
+        return savedUser;
     }
     
     public void activateUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        user.setIsActive(true);
+        user.setActive(true);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
     }
     
     public Long getOnlineUserCount() {
-        return userRepository.countOnlineUsers();
+        return presenceService.getOnlineCount();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,188 @@
+-- Schema as previously created by ddl-auto=update. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate), so this script only runs against an empty schema.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    role VARCHAR(32),
+    is_active BIT NOT NULL,
+    is_online BIT NOT NULL,
+    last_login DATETIME(6),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    profile_image_url VARCHAR(255),
+    timezone VARCHAR(255),
+    language VARCHAR(255),
+    work_hours_per_day INT,
+    reset_token VARCHAR(255),
+    reset_token_expiry DATETIME(6),
+    token_version INT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE projects (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    priority VARCHAR(32),
+    status VARCHAR(32),
+    start_date DATETIME(6),
+    end_date DATETIME(6),
+    deadline DATETIME(6),
+    manager_id BIGINT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    progress_percentage INT,
+    budget DOUBLE,
+    client_name VARCHAR(255),
+    is_archived BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_projects_manager FOREIGN KEY (manager_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE project_members (
+    project_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    CONSTRAINT fk_project_members_project FOREIGN KEY (project_id) REFERENCES projects (id),
+    CONSTRAINT fk_project_members_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE tasks (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    priority VARCHAR(32),
+    status VARCHAR(32),
+    project_id BIGINT,
+    assigned_to BIGINT,
+    created_by BIGINT,
+    due_date DATETIME(6),
+    estimated_hours DOUBLE,
+    actual_hours DOUBLE,
+    progress_percentage INT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    started_at DATETIME(6),
+    completed_at DATETIME(6),
+    tags VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_tasks_project FOREIGN KEY (project_id) REFERENCES projects (id),
+    CONSTRAINT fk_tasks_assigned_to FOREIGN KEY (assigned_to) REFERENCES users (id),
+    CONSTRAINT fk_tasks_created_by FOREIGN KEY (created_by) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE time_entries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    project_id BIGINT,
+    task_id BIGINT,
+    punch_in_time DATETIME(6) NOT NULL,
+    punch_out_time DATETIME(6),
+    lunch_in_time DATETIME(6),
+    lunch_out_time DATETIME(6),
+    break_start_time DATETIME(6),
+    break_end_time DATETIME(6),
+    total_work_hours DOUBLE,
+    total_break_hours DOUBLE,
+    total_lunch_hours DOUBLE,
+    overtime_hours DOUBLE,
+    is_active BIT NOT NULL,
+    notes VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    is_manual_entry BIT NOT NULL,
+    approved_by BIGINT,
+    approved_at DATETIME(6),
+    is_approved BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_time_entries_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_time_entries_project FOREIGN KEY (project_id) REFERENCES projects (id),
+    CONSTRAINT fk_time_entries_task FOREIGN KEY (task_id) REFERENCES tasks (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE screenshots (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    time_entry_id BIGINT,
+    cloudinary_url VARCHAR(255) NOT NULL,
+    cloudinary_public_id VARCHAR(255),
+    file_name VARCHAR(255),
+    file_size BIGINT,
+    image_width INT,
+    image_height INT,
+    captured_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6),
+    is_manual BIT NOT NULL,
+    notes VARCHAR(255),
+    is_approved BIT NOT NULL,
+    approved_by BIGINT,
+    approved_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_screenshots_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_screenshots_time_entry FOREIGN KEY (time_entry_id) REFERENCES time_entries (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE notifications (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message TEXT,
+    type VARCHAR(32),
+    status VARCHAR(32),
+    created_at DATETIME(6),
+    read_at DATETIME(6),
+    action_url VARCHAR(255),
+    is_email_sent BIT NOT NULL,
+    email_sent_at DATETIME(6),
+    email_requested BIT NOT NULL,
+    email_attempts INT,
+    next_email_attempt_at DATETIME(6),
+    email_error TEXT,
+    PRIMARY KEY (id),
+    INDEX idx_notification_email_outbox (email_requested, is_email_sent, next_email_attempt_at),
+    CONSTRAINT fk_notifications_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE daily_time_rollups (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    project_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    total_work_hours DOUBLE NOT NULL,
+    overtime_hours DOUBLE NOT NULL,
+    entry_count BIGINT NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_rollup_user_project_date UNIQUE (user_id, project_id, rollup_date),
+    INDEX idx_rollup_date (rollup_date)
+) ENGINE=InnoDB;
+
+CREATE TABLE report_jobs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    report_type VARCHAR(32) NOT NULL,
+    requested_by BIGINT NOT NULL,
+    target_user_id BIGINT,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    request_key VARCHAR(64) NOT NULL,
+    dedup_key VARCHAR(64),
+    status VARCHAR(32) NOT NULL,
+    progress INT NOT NULL,
+    result_path VARCHAR(255),
+    file_name VARCHAR(255),
+    file_size BIGINT,
+    error_message TEXT,
+    created_at DATETIME(6),
+    started_at DATETIME(6),
+    completed_at DATETIME(6),
+    expires_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_report_job_dedup_key UNIQUE (dedup_key),
+    INDEX idx_report_job_expires_at (expires_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,39 @@
+-- Composite indexes for the TimeEntryRepository and ScreenshotRepository queries.
+-- InnoDB appends the primary key to every secondary index, so (user_id, punch_in_time) also
+-- serves the (punch_in_time, id) keyset cursor. Keep SchemaVerificationService in step with this file.
+
+-- Per-user date ranges: entry lists, the keyset page, the export stream and findRecentTimeEntries.
+-- The hour columns make the SUM/AVG/COUNT dashboard aggregates index-only.
+CREATE INDEX idx_time_entries_user_punch_in
+    ON time_entries (user_id, punch_in_time, total_work_hours, overtime_hours);
+
+-- Team-wide date ranges: findAllTimeEntriesInDateRange, findOvertimeEntriesInDateRange and the totals
+CREATE INDEX idx_time_entries_punch_in
+    ON time_entries (punch_in_time, total_work_hours, overtime_hours);
+
+-- Open entries: findByUserIdAndIsActiveTrue, findByIsActive and the presence/active-user sweep
+CREATE INDEX idx_time_entries_active_user
+    ON time_entries (is_active, user_id);
+
+-- Per-user approval queue
+CREATE INDEX idx_time_entries_user_approved_punch_in
+    ON time_entries (user_id, is_approved, punch_in_time);
+
+-- Per-user date ranges, count and the latest-N gallery
+CREATE INDEX idx_screenshots_user_captured
+    ON screenshots (user_id, captured_at);
+
+-- Team-wide date ranges and findRecentScreenshots
+CREATE INDEX idx_screenshots_captured
+    ON screenshots (captured_at);
+
+-- findScreenshotsByTimeEntryOrdered; also replaces the plain foreign key index for findByTimeEntryId
+CREATE INDEX idx_screenshots_time_entry_captured
+    ON screenshots (time_entry_id, captured_at);
+
+-- findPendingApprovalScreenshots and findManualScreenshotsByUserInDateRange
+CREATE INDEX idx_screenshots_user_approved
+    ON screenshots (user_id, is_approved);
+
+CREATE INDEX idx_screenshots_user_manual_captured
+    ON screenshots (user_id, is_manual, captured_at);
@@ -0,0 +1,8 @@
+-- FULLTEXT indexes behind SearchService; this migration is the only place they are created.
+-- The MATCH column lists in the repositories must stay identical. Keep SchemaVerificationService in step with this file.
+
+ALTER TABLE tasks ADD FULLTEXT INDEX ft_tasks_search (title, description, tags);
+
+ALTER TABLE projects ADD FULLTEXT INDEX ft_projects_search (name, description, client_name);
+
+ALTER TABLE users ADD FULLTEXT INDEX ft_users_search (username, email, first_name, last_name);
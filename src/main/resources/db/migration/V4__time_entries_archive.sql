@@ -0,0 +1,44 @@
+-- Cold storage for closed, approved time entries past the retention window (TimeEntryArchiveService).
+-- Rows keep their time_entries id, so the two tables never share an id.
+
+CREATE TABLE time_entries_archive (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    project_id BIGINT,
+    task_id BIGINT,
+    punch_in_time DATETIME(6) NOT NULL,
+    punch_out_time DATETIME(6),
+    lunch_in_time DATETIME(6),
+    lunch_out_time DATETIME(6),
+    break_start_time DATETIME(6),
+    break_end_time DATETIME(6),
+    total_work_hours DOUBLE,
+    total_break_hours DOUBLE,
+    total_lunch_hours DOUBLE,
+    overtime_hours DOUBLE,
+    is_active BIT NOT NULL,
+    notes VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    is_manual_entry BIT NOT NULL,
+    approved_by BIGINT,
+    approved_at DATETIME(6),
+    is_approved BIT NOT NULL,
+    archived_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_time_entries_archive_user_punch_in (user_id, punch_in_time),
+    INDEX idx_time_entries_archive_punch_in (punch_in_time),
+    CONSTRAINT fk_time_entries_archive_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_time_entries_archive_project FOREIGN KEY (project_id) REFERENCES projects (id),
+    CONSTRAINT fk_time_entries_archive_task FOREIGN KEY (task_id) REFERENCES tasks (id)
+) ENGINE=InnoDB;
+
+-- Screenshots keep pointing at entries that move to the archive. The constraint name differs between
+-- databases created here and ones built by ddl-auto, so look it up.
+SET @fk = (SELECT constraint_name FROM information_schema.key_column_usage
+           WHERE table_schema = DATABASE() AND table_name = 'screenshots' AND column_name = 'time_entry_id'
+             AND referenced_table_name = 'time_entries' LIMIT 1);
+SET @ddl = IF(@fk IS NULL, 'DO 0', CONCAT('ALTER TABLE screenshots DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
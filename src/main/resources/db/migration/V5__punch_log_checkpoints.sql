@@ -0,0 +1,8 @@
+-- Applied position of each node's local punch log (PunchLogService)
+
+CREATE TABLE punch_log_checkpoints (
+    node_id VARCHAR(64) NOT NULL,
+    position BIGINT NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (node_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,13 @@
+-- Punch log records that could not be written to time_entries (PunchLogService), kept for inspection and replay
+
+CREATE TABLE punch_log_dead_letters (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    node_id VARCHAR(64) NOT NULL,
+    position BIGINT NOT NULL,
+    user_id BIGINT,
+    action VARCHAR(32) NOT NULL,
+    payload LONGBLOB NOT NULL,
+    error VARCHAR(1000),
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
@@ -2,8 +2,12 @@ package com.teamlogger.backend;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("test")
+@Import(BackendTestConfiguration.class)
 class BackendApplicationTests {
 
 	@Test
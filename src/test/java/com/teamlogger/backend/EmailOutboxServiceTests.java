@@ -0,0 +1,129 @@
+package com.teamlogger.backend;
+
+import com.teamlogger.backend.entity.Notification;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.NotificationRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.backend.service.EmailOutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+// The test profile never polls the outbox on its own, so each test dispatches it by hand
+@SpringBootTest(properties = {"management.health.mail.enabled=false", "email.outbox.initial-backoff=60000"})
+@ActiveProfiles("test")
+@Import(BackendTestConfiguration.class)
+class EmailOutboxServiceTests {
+    
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+    
+    @Autowired
+    private NotificationRepository notificationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockitoBean
+    private JavaMailSender mailSender;
+    
+    private User user;
+    
+    @BeforeEach
+    void seed() {
+        String unique = "outbox-" + UUID.randomUUID().toString().substring(0, 8);
+        User recipient = new User();
+        recipient.setUsername(unique);
+        recipient.setEmail(unique + "@example.com");
+        recipient.setPassword("{noop}password");
+        recipient.setFirstName("Outbox");
+        recipient.setLastName(unique);
+        user = userRepository.save(recipient);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        notificationRepository.deleteAll(notificationsOf(user));
+        userRepository.delete(user);
+    }
+    
+    @Test
+    void sendsPendingNotificationsForOneUserAsOneDigest() {
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.INFO, "New Task Assignment", "First task");
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.INFO, "New Project Assignment", "First project");
+        
+        emailOutboxService.dispatchPending();
+        
+        List<SimpleMailMessage> messages = sentTo(user);
+        assertEquals(1, messages.size());
+        assertEquals("Team Logger - 2 new notifications", messages.get(0).getSubject());
+        assertTrue(messages.get(0).getText().contains("New Task Assignment"));
+        assertTrue(messages.get(0).getText().contains("New Project Assignment"));
+        
+        List<Notification> notifications = notificationsOf(user);
+        assertEquals(2, notifications.size());
+        for (Notification notification : notifications) {
+            assertTrue(notification.isEmailSent());
+            assertNotNull(notification.getEmailSentAt());
+        }
+    }
+    
+    @Test
+    void failedSendIsCountedAndBackedOff() {
+        doThrow(new MailSendException("SMTP unavailable")).when(mailSender).send(any(SimpleMailMessage[].class));
+        emailOutboxService.queue(user.getId(), Notification.NotificationType.WARNING, "Overtime Alert", "Too many hours");
+        LocalDateTime before = LocalDateTime.now();
+        
+        emailOutboxService.dispatchPending();
+        
+        Notification notification = notificationsOf(user).get(0);
+        assertFalse(notification.isEmailSent());
+        assertEquals(1, notification.getEmailAttempts());
+        assertEquals("SMTP unavailable", notification.getEmailError());
+        // First retry waits the initial backoff, not the claim timeout
+        assertTrue(notification.getNextEmailAttemptAt().isAfter(before.plusSeconds(59)));
+        assertTrue(notification.getNextEmailAttemptAt().isBefore(LocalDateTime.now().plusSeconds(61)));
+        
+        // Still backing off, so the next poll leaves it alone
+        emailOutboxService.dispatchPending();
+        assertEquals(1, notificationsOf(user).get(0).getEmailAttempts());
+    }
+    
+    private List<SimpleMailMessage> sentTo(User recipient) {
+        ArgumentCaptor<SimpleMailMessage[]> captor = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender, atLeastOnce()).send(captor.capture());
+        return captor.getAllValues().stream()
+                .flatMap(Arrays::stream)
+                .filter(message -> Arrays.asList(message.getTo()).contains(recipient.getEmail()))
+                .toList();
+    }
+    
+    private List<Notification> notificationsOf(User recipient) {
+        return notificationRepository.findAll().stream()
+                .filter(notification -> notification.getUser().getId().equals(recipient.getId()))
+                .toList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.teamlogger.backend;
+
+import com.teamlogger.backend.entity.DailyTimeRollup;
+import com.teamlogger.backend.entity.Project;
+import com.teamlogger.backend.entity.PunchLogCheckpoint;
+import com.teamlogger.backend.entity.PunchLogDeadLetter;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.repository.DailyTimeRollupRepository;
+import com.teamlogger.backend.repository.ProjectRepository;
+import com.teamlogger.backend.repository.PunchLogCheckpointRepository;
+import com.teamlogger.backend.repository.PunchLogDeadLetterRepository;
+import com.teamlogger.backend.repository.TimeEntryRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.backend.service.ActiveTimeEntryIndex;
+import com.teamlogger.backend.service.PunchLogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the write-behind punch path against the embedded database; the log is applied only when a test asks
+@SpringBootTest(properties = {"punch-log.enabled=true", "punch-log.apply-interval=86400000"})
+@ActiveProfiles("test")
+@Import(BackendTestConfiguration.class)
+class PunchLogServiceTests {
+    
+    @TempDir
+    static Path logDirectory;
+    
+    @DynamicPropertySource
+    static void punchLogProperties(DynamicPropertyRegistry registry) {
+        registry.add("punch-log.dir", () -> logDirectory.toString());
+    }
+    
+    @Autowired
+    private PunchLogService punchLogService;
+    
+    @Autowired
+    private ActiveTimeEntryIndex activeTimeEntryIndex;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProjectRepository projectRepository;
+    
+    @Autowired
+    private TimeEntryRepository timeEntryRepository;
+    
+    @Autowired
+    private DailyTimeRollupRepository rollupRepository;
+    
+    @Autowired
+    private PunchLogCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private PunchLogDeadLetterRepository deadLetterRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Test
+    void appliesMixedBatchAsRowsAndRollups() {
+        User first = userRepository.save(user("punch-first"));
+        User second = userRepository.save(user("punch-second"));
+        Project project = projectRepository.save(project("Punch project", first));
+        
+        TimeEntry opened = punchLogService.punchIn(first.getId(), project.getId(), null, null);
+        assertNull(opened.getId());
+        assertEquals(first.getFullName(), opened.getUser().getFullName());
+        assertEquals("Punch project", opened.getProject().getName());
+        punchLogService.punchOut(first.getId(), "done");
+        punchLogService.punchIn(first.getId(), null, null, null);
+        punchLogService.punchIn(second.getId(), project.getId(), null, null);
+        TimeEntry lunch = punchLogService.startLunch(second.getId());
+        assertEquals("Punch project", lunch.getProject().getName());
+        
+        punchLogService.applyPending();
+        assertEquals(0, punchLogService.getPendingBytes());
+        
+        List<TimeEntry> firstEntries = timeEntryRepository.findByUserId(first.getId()).stream()
+                .sorted(Comparator.comparing(TimeEntry::getId))
+                .toList();
+        assertEquals(2, firstEntries.size());
+        assertFalse(firstEntries.get(0).isActive());
+        assertNotNull(firstEntries.get(0).getPunchOutTime());
+        assertEquals("done", firstEntries.get(0).getNotes());
+        assertTrue(firstEntries.get(1).isActive());
+        
+        List<TimeEntry> secondEntries = timeEntryRepository.findByUserId(second.getId());
+        assertEquals(1, secondEntries.size());
+        assertTrue(secondEntries.get(0).isActive());
+        assertNotNull(secondEntries.get(0).getLunchInTime());
+        
+        assertEquals(2L, entryCount(first.getId()));
+        assertEquals(1L, entryCount(second.getId()));
+        
+        // Open entries take their row ids once written, and keep their names
+        TimeEntry indexed = activeTimeEntryIndex.get(first.getId());
+        assertEquals(firstEntries.get(1).getId(), indexed.getId());
+        assertEquals(first.getFullName(), indexed.getUser().getFullName());
+        assertEquals(secondEntries.get(0).getId(), activeTimeEntryIndex.get(second.getId()).getId());
+    }
+    
+    @Test
+    void movesRejectedRecordToDeadLettersAndPassesIt() {
+        User rejected = userRepository.save(user("punch-rejected"));
+        User accepted = userRepository.save(user("punch-accepted"));
+        Project project = projectRepository.save(project("Deleted project", rejected));
+        
+        punchLogService.punchIn(rejected.getId(), project.getId(), null, null);
+        punchLogService.punchIn(accepted.getId(), null, null, null);
+        // The project is gone by the time the punch-in is written, so time_entries rejects it
+        projectRepository.delete(project);
+        
+        long checkpoint = checkpointRepository.findAll().stream()
+                .findFirst()
+                .map(PunchLogCheckpoint::getPosition)
+                .orElse(0L);
+        long pending = punchLogService.getPendingBytes();
+        double deadLetters = meterRegistry.counter("punch.log.dead_letters").count();
+        
+        punchLogService.applyPending();
+        
+        List<PunchLogDeadLetter> letters = deadLetterRepository.findAll().stream()
+                .filter(letter -> rejected.getId().equals(letter.getUserId()))
+                .toList();
+        assertEquals(1, letters.size());
+        assertEquals("PUNCH_IN", letters.get(0).getAction());
+        assertEquals(deadLetters + 1, meterRegistry.counter("punch.log.dead_letters").count());
+        
+        assertEquals(0, punchLogService.getPendingBytes());
+        assertEquals(checkpoint + pending, checkpointRepository.findAll().get(0).getPosition());
+        
+        assertTrue(timeEntryRepository.findByUserId(rejected.getId()).isEmpty());
+        assertNull(activeTimeEntryIndex.get(rejected.getId()));
+        assertEquals(1, timeEntryRepository.findByUserId(accepted.getId()).size());
+        assertNotNull(activeTimeEntryIndex.get(accepted.getId()).getId());
+    }
+    
+    private long entryCount(Long userId) {
+        return rollupRepository.findByUserIdAndRollupDateBetween(userId, LocalDate.now().minusDays(1), LocalDate.now())
+                .stream()
+                .mapToLong(DailyTimeRollup::getEntryCount)
+                .sum();
+    }
+    
+    private static User user(String username) {
+        String unique = username + "-" + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername(unique);
+        user.setEmail(unique + "@example.com");
+        user.setPassword("{noop}password");
+        user.setFirstName("Punch");
+        user.setLastName(unique);
+        return user;
+    }
+    
+    private static Project project(String name, User manager) {
+        Project project = new Project();
+        project.setName(name);
+        project.setManager(manager);
+        return project;
+    }
+}
@@ -0,0 +1,332 @@
+package com.teamlogger.backend;
+
+import com.teamlogger.backend.entity.Project;
+import com.teamlogger.backend.entity.ReportJob;
+import com.teamlogger.backend.entity.Task;
+import com.teamlogger.backend.entity.TimeEntry;
+import com.teamlogger.backend.entity.User;
+import com.teamlogger.backend.metrics.StatementMetricsFilter;
+import com.teamlogger.backend.repository.NotificationRepository;
+import com.teamlogger.backend.repository.ProjectRepository;
+import com.teamlogger.backend.repository.ReportJobRepository;
+import com.teamlogger.backend.repository.TaskRepository;
+import com.teamlogger.backend.repository.TimeEntryRepository;
+import com.teamlogger.backend.repository.UserRepository;
+import com.teamlogger.backend.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every endpoint must stay within its SQL statement budget, however many rows it returns
+@SpringBootTest(properties = {"query-budget.fail=true", "management.health.mail.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(BackendTestConfiguration.class)
+class QueryBudgetTests {
+    
+    // Enough rows that a per-row lazy load pushes any endpoint over budget
+    private static final int ROWS = 15;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProjectRepository projectRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TimeEntryRepository timeEntryRepository;
+    
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+    
+    @Autowired
+    private NotificationRepository notificationRepository;
+    
+    // Password resets and timesheet mails are sent directly; there is no SMTP server in tests
+    @MockitoBean
+    private JavaMailSender mailSender;
+    
+    private final List<User> users = new ArrayList<>();
+    
+    private final List<Project> projects = new ArrayList<>();
+    
+    private final List<Task> tasks = new ArrayList<>();
+    
+    private final List<TimeEntry> timeEntries = new ArrayList<>();
+    
+    private String suffix;
+    
+    private ReportJob job;
+    
+    // Rows nothing else refers to, for the delete endpoints
+    private User spareUser;
+    
+    private Project spareProject;
+    
+    private Task spareTask;
+    
+    private String token;
+    
+    @BeforeEach
+    void seed() {
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        User admin = user("budget-admin-" + suffix, User.UserRole.ADMIN);
+        admin.setResetToken("budget-reset-" + suffix);
+        admin.setResetTokenExpiry(LocalDateTime.now().plusHours(1));
+        admin = userRepository.save(admin);
+        users.add(admin);
+        
+        for (int i = 0; i < ROWS; i++) {
+            User member = userRepository.save(user("budget-member-" + suffix + "-" + i, User.UserRole.USER));
+            users.add(member);
+            
+            Project project = new Project();
+            project.setName("Budget project " + suffix + " " + i);
+            project.setManager(admin);
+            project.setMembers(new ArrayList<>(List.of(admin, member)));
+            projects.add(projectRepository.save(project));
+            
+            Task task = new Task();
+            task.setTitle("Budget task " + suffix + " " + i);
+            task.setProject(project);
+            task.setAssignedTo(member);
+            task.setCreatedBy(admin);
+            task.setDueDate(LocalDateTime.now().minusDays(1));
+            tasks.add(taskRepository.save(task));
+            
+            TimeEntry entry = new TimeEntry();
+            entry.setUser(i % 2 == 0 ? admin : member);
+            entry.setProject(project);
+            entry.setTask(task);
+            entry.setPunchInTime(LocalDateTime.now().minusDays(i % 7).minusHours(9));
+            entry.setPunchOutTime(LocalDateTime.now().minusDays(i % 7).minusHours(1));
+            entry.setOvertimeHours(1.0);
+            entry.setActive(false);
+            timeEntries.add(timeEntryRepository.save(entry));
+        }
+        
+        spareUser = userRepository.save(user("budget-spare-" + suffix, User.UserRole.USER));
+        users.add(spareUser);
+        Project project = new Project();
+        project.setName("Budget spare project " + suffix);
+        project.setManager(admin);
+        spareProject = projectRepository.save(project);
+        Task task = new Task();
+        task.setTitle("Budget spare task " + suffix);
+        task.setCreatedBy(admin);
+        spareTask = taskRepository.save(task);
+        
+        ReportJob queued = new ReportJob();
+        queued.setReportType(ReportJob.ReportType.TIMESHEET_PDF);
+        queued.setRequestedBy(admin.getId());
+        queued.setTargetUserId(admin.getId());
+        queued.setStartDate(LocalDate.now().minusDays(30));
+        queued.setEndDate(LocalDate.now());
+        queued.setRequestKey("budget-" + suffix);
+        job = reportJobRepository.save(queued);
+        
+        token = "Bearer " + tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+    }
+    
+    // Rows the write endpoints created are found through the admin that made them
+    @AfterEach
+    void cleanUp() {
+        Long adminId = users.get(0).getId();
+        userRepository.findByUsername("budget-created-" + suffix).ifPresent(users::add);
+        userRepository.findByUsername("budget-registered-" + suffix).ifPresent(users::add);
+        Set<Long> userIds = users.stream().map(User::getId).collect(Collectors.toSet());
+        
+        reportJobRepository.deleteAll(reportJobRepository.findByRequestedByOrderByCreatedAtDesc(adminId));
+        notificationRepository.deleteAll(notificationRepository.findAll().stream()
+                .filter(notification -> userIds.contains(notification.getUser().getId()))
+                .toList());
+        userIds.forEach(userId -> timeEntryRepository.deleteAll(timeEntryRepository.findByUserId(userId)));
+        taskRepository.deleteAll(taskRepository.findByCreatedById(adminId));
+        projectRepository.deleteAll(projectRepository.findByManagerId(adminId));
+        userRepository.deleteAll(users);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/auth/me",
+            "/api/dashboard/stats",
+            "/api/dashboard/user-stats",
+            "/api/dashboard/team-stats",
+            "/api/dashboard/project-stats",
+            "/api/dashboard/recent-activities",
+            "/api/dashboard/productivity-chart?period=week",
+            "/api/dashboard/online-users",
+            "/api/time-tracking/current",
+            "/api/time-tracking/entries?startDate={start}&endDate={end}",
+            "/api/time-tracking/entries?startDate={start}&endDate={end}&size=5",
+            "/api/time-tracking/total-hours?startDate={start}&endDate={end}",
+            "/api/time-tracking/overtime-hours?startDate={start}&endDate={end}",
+            "/api/time-tracking/pending-approval",
+            "/api/projects",
+            "/api/projects?size=5",
+            "/api/projects/stats",
+            "/api/projects/search?searchTerm=budget",
+            "/api/projects/{project}",
+            "/api/projects/{project}/online-members",
+            "/api/projects/manager/{admin}",
+            "/api/projects/member/{admin}",
+            "/api/projects/status/ACTIVE",
+            "/api/projects/overdue",
+            "/api/tasks",
+            "/api/tasks?size=5",
+            "/api/tasks/stats",
+            "/api/tasks/search?searchTerm=budget&status=TODO",
+            "/api/tasks/{task}",
+            "/api/tasks/project/{project}",
+            "/api/tasks/assigned/{user}",
+            "/api/tasks/created/{admin}",
+            "/api/tasks/status/TODO",
+            "/api/tasks/overdue",
+            "/api/users",
+            "/api/users/stats",
+            "/api/users/search?searchTerm=budget",
+            "/api/users/{user}",
+            "/api/users/active",
+            "/api/users/role/USER",
+            "/api/users/online",
+            "/api/reports/timesheet?startDate={start}&endDate={end}",
+            "/api/reports/productivity?startDate={start}&endDate={end}",
+            "/api/reports/overtime?startDate={start}&endDate={end}",
+            "/api/reports/jobs",
+            "/api/reports/jobs/{job}"
+    })
+    void endpointStaysWithinBudget(String uri) throws Exception {
+        assertWithinBudget(uri, get(withIds(uri), LocalDate.now().minusDays(30), LocalDate.now()));
+    }
+    
+    // Method | URI | JSON body, if the endpoint takes one. The timesheet email is left out: its export streams with
+    // MySQL's Integer.MIN_VALUE fetch size, which H2 rejects
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            POST   | /api/auth/login                                 | {"username": "budget-admin-{suffix}", "password": "password"}
+            POST   | /api/auth/register                              | {"username": "budget-registered-{suffix}", "email": "budget-registered-{suffix}@example.com", "password": "password", "firstName": "Budget", "lastName": "Registered"}
+            POST   | /api/auth/logout                                |
+            POST   | /api/auth/heartbeat                             |
+            POST   | /api/auth/forgot-password?email=budget-admin-{suffix}@example.com |
+            POST   | /api/auth/reset-password?resetToken=budget-reset-{suffix}&newPassword=changed |
+            POST   | /api/auth/change-password?currentPassword=password&newPassword=changed |
+            POST   | /api/time-tracking/manual-entry                 | {"userId": {admin}, "projectId": {project}, "taskId": {task}, "punchInTime": "2024-01-08T09:00:00", "punchOutTime": "2024-01-08T17:00:00"}
+            POST   | /api/time-tracking/approve/{entry}              |
+            DELETE | /api/time-tracking/{entry}                      |
+            POST   | /api/projects                                   | {"name": "Budget created project {suffix}"}
+            PUT    | /api/projects/{project}                         | {"name": "Budget renamed project {suffix}", "status": "ACTIVE", "priority": "HIGH", "members": [{"id": {admin}}, {"id": {user}}]}
+            PUT    | /api/projects/{project}/archive                 |
+            PUT    | /api/projects/{project}/unarchive               |
+            DELETE | /api/projects/{spareProject}                    |
+            POST   | /api/tasks                                      | {"title": "Budget created task {suffix}", "project": {"id": {project}}, "assignedTo": {"id": {user}}}
+            PUT    | /api/tasks/{task}                               | {"title": "Budget renamed task {suffix}", "status": "TODO", "priority": "HIGH", "project": {"id": {project}}, "assignedTo": {"id": {user}}}
+            PUT    | /api/tasks/{task}/start                         |
+            PUT    | /api/tasks/{task}/complete                      |
+            PUT    | /api/tasks/{task}/progress?progress=50          |
+            DELETE | /api/tasks/{spareTask}                          |
+            POST   | /api/users                                      | {"username": "budget-created-{suffix}", "email": "budget-created-{suffix}@example.com", "password": "password", "firstName": "Budget", "lastName": "Created"}
+            PUT    | /api/users/{user}                               | {"firstName": "Budget", "lastName": "Renamed", "email": "budget-renamed-{suffix}@example.com", "role": "USER", "active": true}
+            PUT    | /api/users/{user}/activate                      |
+            PUT    | /api/users/{user}/deactivate                    |
+            PUT    | /api/users/{user}/reset-password                |
+            DELETE | /api/users/{spareUser}                          |
+            POST   | /api/reports/jobs?type=TIMESHEET_PDF&startDate={start}&endDate={end} |
+            """)
+    void writeEndpointStaysWithinBudget(String method, String uri, String body) throws Exception {
+        MockHttpServletRequestBuilder request = request(HttpMethod.valueOf(method), withIds(uri),
+                LocalDate.now().minusDays(30), LocalDate.now());
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(withIds(body));
+        }
+        assertWithinBudget(method + " " + uri, request);
+    }
+    
+    // Each step depends on the one before it, so a working day is walked through in order
+    @Test
+    void punchEndpointsStayWithinBudget() throws Exception {
+        for (String uri : List.of(
+                "/api/time-tracking/punch-in?projectId={project}&taskId={task}",
+                "/api/time-tracking/lunch/start",
+                "/api/time-tracking/lunch/end",
+                "/api/time-tracking/break/start",
+                "/api/time-tracking/break/end",
+                "/api/time-tracking/punch-out?notes=done")) {
+            assertWithinBudget("POST " + uri, post(withIds(uri)));
+        }
+    }
+    
+    private void assertWithinBudget(String description, MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request.header("Authorization", token))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+        
+        int statements = (Integer) result.getRequest().getAttribute(StatementMetricsFilter.STATEMENT_COUNT_ATTRIBUTE);
+        int budget = (Integer) result.getRequest().getAttribute(StatementMetricsFilter.STATEMENT_BUDGET_ATTRIBUTE);
+        assertTrue(statements <= budget, description + " issued " + statements + " statements, budget is " + budget);
+    }
+    
+    // Ids are only known once the rows are seeded; dates stay positional URI variables
+    private String withIds(String template) {
+        return template.replace("{admin}", users.get(0).getId().toString())
+                .replace("{user}", users.get(1).getId().toString())
+                .replace("{project}", projects.get(0).getId().toString())
+                .replace("{task}", tasks.get(0).getId().toString())
+                .replace("{entry}", timeEntries.get(1).getId().toString())
+                .replace("{job}", job.getId().toString())
+                .replace("{spareUser}", spareUser.getId().toString())
+                .replace("{spareProject}", spareProject.getId().toString())
+                .replace("{spareTask}", spareTask.getId().toString())
+                .replace("{suffix}", suffix);
+    }
+    
+    private User user(String username, User.UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}password");
+        user.setFirstName("Budget");
+        user.setLastName(username);
+        user.setRole(role);
+        return user;
+    }
+}
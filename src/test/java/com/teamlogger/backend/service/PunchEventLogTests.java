@@ -0,0 +1,125 @@
+package com.teamlogger.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PunchEventLogTests {
+    
+    private static final int SEGMENT_SIZE = 64;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void readsRecordsAcrossSegments() throws IOException {
+        try (PunchEventLog log = new PunchEventLog(directory, SEGMENT_SIZE, false)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(payload("record-" + i));
+            }
+            
+            List<PunchEventLog.LogRecord> records = log.read(log.getStartPosition(), 100);
+            assertEquals(10, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals("record-" + i, new String(records.get(i).payload(), StandardCharsets.UTF_8));
+                if (i > 0) {
+                    assertTrue(records.get(i - 1).nextPosition() <= records.get(i).position());
+                }
+            }
+            assertEquals(log.getEndPosition(), records.get(records.size() - 1).nextPosition());
+        }
+        assertTrue(segmentFiles().size() > 1);
+    }
+    
+    @Test
+    void reopenStopsBeforeTruncatedRecord() throws IOException {
+        long secondEnd;
+        long thirdEnd;
+        try (PunchEventLog log = new PunchEventLog(directory, SEGMENT_SIZE * 4, true)) {
+            log.append(payload("first"));
+            secondEnd = log.append(payload("second"));
+            thirdEnd = log.append(payload("third"));
+        }
+        
+        // A crash part-way through the third record
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.truncate(secondEnd + (thirdEnd - secondEnd) / 2);
+        }
+        
+        try (PunchEventLog log = new PunchEventLog(directory, SEGMENT_SIZE * 4, true)) {
+            assertEquals(secondEnd, log.getEndPosition());
+            assertEquals(List.of("first", "second"), payloads(log));
+            
+            log.append(payload("after restart"));
+            assertEquals(List.of("first", "second", "after restart"), payloads(log));
+        }
+    }
+    
+    @Test
+    void reopenStopsAtRecordFailingItsChecksum() throws IOException {
+        long firstEnd;
+        try (PunchEventLog log = new PunchEventLog(directory, SEGMENT_SIZE * 4, true)) {
+            firstEnd = log.append(payload("first"));
+            log.append(payload("second"));
+        }
+        
+        // Header is [length][crc32]; damage the second record's payload
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), firstEnd + 8);
+        }
+        
+        try (PunchEventLog log = new PunchEventLog(directory, SEGMENT_SIZE * 4, true)) {
+            assertEquals(firstEnd, log.getEndPosition());
+            assertEquals(List.of("first"), payloads(log));
+        }
+    }
+    
+    @Test
+    void deleteBeforeDropsOnlyFullyReadSegments() throws IOException {
+        try (PunchEventLog log = new PunchEventLog(directory, SEGMENT_SIZE, false)) {
+            long position = 0;
+            for (int i = 0; i < 10; i++) {
+                position = log.append(payload("record-" + i));
+            }
+            int segmentsBefore = segmentFiles().size();
+            List<PunchEventLog.LogRecord> records = log.read(log.getStartPosition(), 100);
+            
+            log.deleteBefore(records.get(5).position());
+            assertTrue(segmentFiles().size() < segmentsBefore);
+            assertTrue(log.getStartPosition() <= records.get(5).position());
+            assertEquals("record-5", new String(log.read(records.get(5).position(), 1).get(0).payload(), StandardCharsets.UTF_8));
+            
+            // The segment being written is always kept
+            log.deleteBefore(position);
+            assertEquals(1, segmentFiles().size());
+        }
+    }
+    
+    private List<String> payloads(PunchEventLog log) {
+        return log.read(log.getStartPosition(), 100).stream()
+                .map(record -> new String(record.payload(), StandardCharsets.UTF_8))
+                .toList();
+    }
+    
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+    
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}